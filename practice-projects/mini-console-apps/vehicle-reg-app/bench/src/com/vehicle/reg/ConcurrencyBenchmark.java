@@ -0,0 +1,164 @@
+package com.vehicle.reg;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * -----------------------------------------------------------------------------
+ * ConcurrencyBenchmark.java
+ *
+ * Several threads writing to one registry at once, in memory or with a
+ * journal (-p journaled=true), to show how much of a registration is
+ * serialized by the write lock.
+ *
+ *  - churn: 4 threads, each adding and deleting vehicles of its own;
+ *    compare with a single thread by running it with -t 1.
+ *  - mixed: 2 threads churning while 2 others look up VINs, so the
+ *    lookups show how long readers wait behind writers.
+ *
+ * Scores are operations per millisecond; one churn operation is an add
+ * and the delete that follows it.
+ * -----------------------------------------------------------------------------
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ConcurrencyBenchmark {
+
+    /** Vehicles registered before the threads start */
+    public static final int FLEET = 100_000;
+
+    /** Vehicles each writer thread cycles through */
+    public static final int PER_THREAD = 4096;
+
+    /**
+     * The shared registry, in a temporary data directory when journaled.
+     */
+    @State(Scope.Benchmark)
+    public static class Registry {
+
+        @Param({"false", "true"})
+        public boolean journaled;
+
+        VehicleManager manager;
+        Path dataDir;
+        final AtomicInteger writers = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void open() throws IOException {
+            if (journaled) {
+                dataDir = Files.createTempDirectory("registry-bench");
+                manager = new VehicleManager(dataDir);
+            } else {
+                manager = new VehicleManager();
+            }
+            List<Car> fleet = new ArrayList<>(FLEET);
+            for (int i = 0; i < FLEET; i++) {
+                fleet.add(SyntheticFleet.car(i));
+            }
+            manager.registerBatch(fleet, BatchResult.Mode.ALL_OR_NOTHING);
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws IOException {
+            manager.close();
+            if (dataDir != null) {
+                try (Stream<Path> files = Files.walk(dataDir)) {
+                    for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                        Files.delete(file);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A writer thread's own vehicles, numbered after the fleet.
+     */
+    @State(Scope.Thread)
+    public static class Writer {
+
+        Car[] cars;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void build(Registry registry) {
+            int first = FLEET + registry.writers.getAndIncrement() * PER_THREAD;
+            cars = new Car[PER_THREAD];
+            for (int k = 0; k < PER_THREAD; k++) {
+                cars[k] = SyntheticFleet.car(first + k);
+            }
+        }
+
+        Car next() {
+            Car car = cars[next];
+            next = (next + 1) & (PER_THREAD - 1);
+            return car;
+        }
+    }
+
+    /**
+     * A reader thread's position among the fleet's VINs.
+     */
+    @State(Scope.Thread)
+    public static class Reader {
+
+        private int next;
+
+        String nextVin() {
+            next = (next + 7919) % FLEET;
+            return SyntheticFleet.vin(next);
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean churn(Registry registry, Writer writer) {
+        return addThenDelete(registry.manager, writer.next());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public boolean mixedWrite(Registry registry, Writer writer) {
+        return addThenDelete(registry.manager, writer.next());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public Car mixedRead(Registry registry, Reader reader) {
+        return registry.manager.findCar(reader.nextVin());
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    private static boolean addThenDelete(VehicleManager manager, Car car) {
+        return manager.addCar(car) & manager.deleteCar(car.getVin());
+    }
+}
@@ -0,0 +1,52 @@
+package com.vehicle.reg;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * -----------------------------------------------------------------------------
+ * LookupBenchmark.java
+ *
+ * Read paths of VehicleManager: exact lookups by VIN and plate (hits and
+ * misses) and the near-miss search behind the GUI's search box.
+ * -----------------------------------------------------------------------------
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LookupBenchmark {
+
+    @Benchmark
+    public Car findCarByVin(RegistryState registry, RegistryState.Cursor cursor) {
+        return registry.manager.findCar(registry.vins[cursor.next()]);
+    }
+
+    @Benchmark
+    public Car findCarByPlate(RegistryState registry, RegistryState.Cursor cursor) {
+        return registry.manager.findCar(registry.plates[cursor.next()]);
+    }
+
+    @Benchmark
+    public Car findCarMiss(RegistryState registry, RegistryState.Cursor cursor) {
+        return registry.manager.findCar(registry.missingVins[cursor.next()]);
+    }
+
+    @Benchmark
+    public boolean containsVin(RegistryState registry, RegistryState.Cursor cursor) {
+        return registry.manager.containsVin(registry.vins[cursor.next()]);
+    }
+
+    @Benchmark
+    public List<Car> searchTypo(RegistryState registry, RegistryState.Cursor cursor) {
+        return registry.manager.search(registry.nearMisses[cursor.next()], 10);
+    }
+}
@@ -0,0 +1,98 @@
+package com.vehicle.reg;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * -----------------------------------------------------------------------------
+ * RegistryState.java
+ *
+ * JMH state shared by the registry benchmarks: an in-memory registry of
+ * `scale` synthetic vehicles (10K, 1M or 10M; pick with -p scale=...),
+ * built once per fork, plus lookup keys spread over the whole fleet.
+ *
+ * Benchmarks cycle through the keys with a per-thread Cursor, so every
+ * invocation looks up a different vehicle and no result can be cached.
+ * -----------------------------------------------------------------------------
+ */
+@State(Scope.Benchmark)
+public class RegistryState {
+
+    /** Number of lookup keys; a power of two so cursors can wrap with a mask */
+    public static final int SAMPLE = 4096;
+
+    // Vehicles per registerBatch call while populating
+    private static final int POPULATE_BATCH = 10_000;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int scale;
+
+    VehicleManager manager;
+    String[] vins;
+    String[] plates;
+    String[] missingVins;
+    String[] nearMisses;
+
+    @Setup(Level.Trial)
+    public void populate() {
+        manager = new VehicleManager();
+        List<Car> chunk = new ArrayList<>(POPULATE_BATCH);
+        for (int i = 0; i < scale; i++) {
+            chunk.add(SyntheticFleet.car(i));
+            if (chunk.size() == POPULATE_BATCH || i == scale - 1) {
+                if (!manager.registerBatch(chunk, BatchResult.Mode.ALL_OR_NOTHING).isFullyAdded()) {
+                    throw new IllegalStateException("Synthetic fleet rejected near vehicle " + i);
+                }
+                chunk.clear();
+            }
+        }
+
+        vins = new String[SAMPLE];
+        plates = new String[SAMPLE];
+        missingVins = new String[SAMPLE];
+        nearMisses = new String[SAMPLE];
+        for (int k = 0; k < SAMPLE; k++) {
+            int i = (int) ((long) k * scale / SAMPLE);
+            vins[k] = SyntheticFleet.vin(i);
+            plates[k] = SyntheticFleet.plate(i);
+            missingVins[k] = SyntheticFleet.missingVin(i);
+            nearMisses[k] = typo(vins[k]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        manager.close();
+    }
+
+    /**
+     * Position in the key arrays, one per benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int next;
+
+        /** Returns the index of the next key to use. */
+        int next() {
+            return next++ & (SAMPLE - 1);
+        }
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    /**
+     * Returns the VIN with one serial character changed, as a mistyped query.
+     */
+    private static String typo(String vin) {
+        char[] chars = vin.toCharArray();
+        chars[14] = chars[14] == 'A' ? 'B' : 'A';
+        return new String(chars);
+    }
+}
@@ -0,0 +1,38 @@
+package com.vehicle.reg;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * -----------------------------------------------------------------------------
+ * StatsBenchmark.java
+ *
+ * The statistics dialog's work: the running fleet totals, which should
+ * cost the same at any scale, and the full FleetAnalytics report, which
+ * walks every vehicle.
+ * -----------------------------------------------------------------------------
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StatsBenchmark {
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public FleetStats getStats(RegistryState registry) {
+        return registry.manager.getStats();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public FleetAnalytics.FleetReport analyze(RegistryState registry) {
+        return new FleetAnalytics(registry.manager).analyze(5, 10);
+    }
+}
@@ -0,0 +1,123 @@
+package com.vehicle.reg;
+
+/**
+ * -----------------------------------------------------------------------------
+ * SyntheticFleet.java
+ *
+ * Deterministic generator of realistic, unique vehicles for benchmarks.
+ * Vehicle i always gets the same VIN (with a valid ISO 3779 check digit)
+ * and the same GP plate, so runs are repeatable and lookups can target
+ * known hits and misses without storing the fleet twice.
+ *
+ * Plates use the old format (ABC123GP) for the first 17.5M vehicles and
+ * the new format (AB12CDGP) after that; both are scattered across the key
+ * space rather than counted upwards, so hash indexes see realistic keys.
+ * -----------------------------------------------------------------------------
+ */
+public final class SyntheticFleet {
+
+    // Characters allowed in a VIN (no I, O or Q)
+    private static final String VIN_CHARS = "0123456789ABCDEFGHJKLMNPRSTUVWXYZ";
+
+    // Manufacturer prefixes, makes and models to spread the dictionaries
+    private static final String[] WMI = {"1HG", "JTD", "WVW", "WBA", "AHT", "SAJ", "VF1", "KMH"};
+    private static final String[] MAKES = {"Honda", "Toyota", "Volkswagen", "BMW", "Toyota SA", "Jaguar", "Renault", "Hyundai"};
+    private static final String[] MODELS = {"Civic", "Corolla", "Polo", "3 Series", "Hilux", "F-Pace", "Clio", "i20",
+            "Accord", "Fortuner", "Golf", "X5", "Quantum", "XE", "Kwid", "Tucson"};
+
+    private static final long OLD_PLATES = 26L * 26 * 26 * 1000;
+    private static final long NEW_PLATES = 26L * 26 * 100 * 26 * 26;
+
+    private SyntheticFleet() {
+        // static helpers only
+    }
+
+    /** Returns the largest fleet size with unique plates. */
+    public static long capacity() {
+        return OLD_PLATES + NEW_PLATES;
+    }
+
+    /**
+     * Returns vehicle number i (0-based).
+     */
+    public static Car car(int i) {
+        Car car = new Car();
+        int brand = Math.floorMod(i * 31 + (i >>> 7), WMI.length);
+        car.setMake(MAKES[brand]);
+        car.setModel(MODELS[Math.floorMod(i * 7 + brand, MODELS.length)]);
+        car.setVin(vin(i));
+        car.setPlateNumber(plate(i));
+        car.setYear(1995 + Math.floorMod(i * 13, 31));
+        car.setMileage(Math.floorMod(i * 7919, 400_000));
+        return car;
+    }
+
+    /**
+     * Returns a VIN that no vehicle of the fleet has (same shape as real ones).
+     */
+    public static String missingVin(int i) {
+        return "ZZZ" + vin(i).substring(3);
+    }
+
+    /**
+     * Returns the VIN of vehicle i: maker prefix, six-character descriptor,
+     * check digit, then an eight-character serial derived from i.
+     */
+    public static String vin(int i) {
+        StringBuilder vin = new StringBuilder(17);
+        vin.append(WMI[Math.floorMod(i * 31 + (i >>> 7), WMI.length)]);
+        long mixed = scramble(i);
+        for (int k = 0; k < 5; k++) {
+            vin.append(VIN_CHARS.charAt((int) Math.floorMod(mixed >>> (k * 5), (long) VIN_CHARS.length())));
+        }
+        vin.append('0'); // check digit, fixed below
+        long serial = i;
+        char[] tail = new char[8];
+        for (int k = 7; k >= 0; k--) {
+            tail[k] = VIN_CHARS.charAt((int) (serial % VIN_CHARS.length()));
+            serial /= VIN_CHARS.length();
+        }
+        vin.append(tail);
+
+        for (char check : "0123456789X".toCharArray()) {
+            vin.setCharAt(8, check);
+            if (VehicleValidator.hasValidCheckDigit(vin)) {
+                break;
+            }
+        }
+        return vin.toString();
+    }
+
+    /**
+     * Returns the plate of vehicle i.
+     */
+    public static String plate(int i) {
+        long n = i;
+        char[] p = new char[8];
+        if (n < OLD_PLATES) {
+            long k = Math.floorMod(n * 7_368_787L, OLD_PLATES); // bijection: multiplier coprime to size
+            p[0] = (char) ('A' + k / (26 * 26 * 1000));
+            p[1] = (char) ('A' + k / (26 * 1000) % 26);
+            p[2] = (char) ('A' + k / 1000 % 26);
+            p[3] = (char) ('0' + k / 100 % 10);
+            p[4] = (char) ('0' + k / 10 % 10);
+            p[5] = (char) ('0' + k % 10);
+        } else {
+            long k = Math.floorMod((n - OLD_PLATES) * 7_368_787L, NEW_PLATES);
+            p[0] = (char) ('A' + k / (26L * 100 * 26 * 26) % 26);
+            p[1] = (char) ('A' + k / (100 * 26 * 26) % 26);
+            p[2] = (char) ('0' + k / (10 * 26 * 26) % 10);
+            p[3] = (char) ('0' + k / (26 * 26) % 10);
+            p[4] = (char) ('A' + k / 26 % 26);
+            p[5] = (char) ('A' + k % 26);
+        }
+        p[6] = 'G';
+        p[7] = 'P';
+        return new String(p);
+    }
+
+    private static long scramble(long i) {
+        long h = i * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+}
@@ -0,0 +1,56 @@
+package com.vehicle.reg;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * -----------------------------------------------------------------------------
+ * ValidationBenchmark.java
+ *
+ * VehicleValidator's checks, as run for every registration and every
+ * imported row. They do not depend on the registry, so there is no scale.
+ * -----------------------------------------------------------------------------
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+    private Car[] cars;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cars = new Car[RegistryState.SAMPLE];
+        for (int k = 0; k < cars.length; k++) {
+            cars[k] = SyntheticFleet.car(k * 997);
+        }
+    }
+
+    @Benchmark
+    public String findProblem(RegistryState.Cursor cursor) {
+        return VehicleValidator.findProblem(cars[cursor.next()]);
+    }
+
+    @Benchmark
+    public boolean isValidVin(RegistryState.Cursor cursor) {
+        return VehicleValidator.isValidVin(cars[cursor.next()].getVin());
+    }
+
+    @Benchmark
+    public boolean isValidPlate(RegistryState.Cursor cursor) {
+        return VehicleValidator.isValidPlate(cars[cursor.next()].getPlateNumber());
+    }
+}
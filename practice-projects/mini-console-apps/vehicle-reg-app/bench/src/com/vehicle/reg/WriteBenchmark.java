@@ -0,0 +1,139 @@
+package com.vehicle.reg;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * -----------------------------------------------------------------------------
+ * WriteBenchmark.java
+ *
+ * Registrations and deletes, one at a time and in bulk. Every invocation
+ * adds or removes the same CHURN vehicles, which are not part of the
+ * fleet, and the state puts them back or takes them out again between
+ * invocations (outside the measured time), so the registry stays at its
+ * scale. Scores are per vehicle.
+ * -----------------------------------------------------------------------------
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class WriteBenchmark {
+
+    /** Vehicles added or deleted per invocation */
+    public static final int CHURN = 1000;
+
+    /**
+     * The churn vehicles, removed again after each invocation.
+     */
+    @State(Scope.Benchmark)
+    public static class Absent {
+
+        List<Car> cars;
+        List<String> vins;
+
+        @Setup(Level.Trial)
+        public void build(RegistryState registry) {
+            cars = churn(registry.scale);
+            vins = vinsOf(cars);
+        }
+
+        @TearDown(Level.Invocation)
+        public void remove(RegistryState registry) {
+            registry.manager.deleteAll(vins);
+        }
+    }
+
+    /**
+     * The churn vehicles, registered before each invocation.
+     */
+    @State(Scope.Benchmark)
+    public static class Present {
+
+        List<Car> cars;
+        List<String> vins;
+
+        @Setup(Level.Trial)
+        public void build(RegistryState registry) {
+            cars = churn(registry.scale);
+            vins = vinsOf(cars);
+        }
+
+        @Setup(Level.Invocation)
+        public void add(RegistryState registry) {
+            registry.manager.registerBatch(cars, BatchResult.Mode.PER_ITEM);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHURN)
+    public int addCar(RegistryState registry, Absent churn) {
+        int added = 0;
+        for (Car car : churn.cars) {
+            if (registry.manager.addCar(car)) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHURN)
+    public BatchResult registerBatch(RegistryState registry, Absent churn) {
+        return registry.manager.registerBatch(churn.cars, BatchResult.Mode.ALL_OR_NOTHING);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHURN)
+    public int deleteCar(RegistryState registry, Present churn) {
+        int deleted = 0;
+        for (String vin : churn.vins) {
+            if (registry.manager.deleteCar(vin)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHURN)
+    public boolean[] deleteAll(RegistryState registry, Present churn) {
+        return registry.manager.deleteAll(churn.vins);
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    /**
+     * Returns CHURN vehicles numbered after the fleet of the given size.
+     */
+    static List<Car> churn(int scale) {
+        List<Car> cars = new ArrayList<>(CHURN);
+        for (int k = 0; k < CHURN; k++) {
+            cars.add(SyntheticFleet.car(scale + k));
+        }
+        return cars;
+    }
+
+    static List<String> vinsOf(List<Car> cars) {
+        List<String> vins = new ArrayList<>(cars.size());
+        for (Car car : cars) {
+            vins.add(car.getVin());
+        }
+        return vins;
+    }
+}
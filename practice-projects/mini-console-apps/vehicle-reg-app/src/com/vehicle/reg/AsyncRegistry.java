@@ -0,0 +1,136 @@
+package com.vehicle.reg;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * -----------------------------------------------------------------------------
+ * AsyncRegistry.java
+ *
+ * Runs VehicleManager operations on background worker threads and hands
+ * back CompletableFutures, so the Swing screens never do registry work on
+ * the event dispatch thread. Pair each call with ProgressDialog.watch()
+ * (or thenAccept + SwingUtilities.invokeLater) to show the result.
+ *
+ * Cancelling a returned future stops waiting for it at once. Long tasks
+ * that take a TaskProgress (import, export) also stop at their next
+ * chunk; short ones simply finish and their result is discarded, so
+ * addCar() and deleteCar() should be watched without a Cancel button
+ * (ProgressDialog.watchUntilDone()).
+ * -----------------------------------------------------------------------------
+ */
+public class AsyncRegistry {
+
+    // Worker threads; reads run concurrently, writes queue on the manager's lock
+    private static final int WORKERS = 2;
+
+    private final VehicleManager manager;
+    private final ExecutorService executor;
+
+    public AsyncRegistry(VehicleManager manager) {
+        this.manager = manager;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(WORKERS, task -> {
+            Thread thread = new Thread(task, "registry-worker-" + count.incrementAndGet());
+            thread.setDaemon(true); // never keeps the application alive
+            return thread;
+        });
+    }
+
+    /** Returns the manager the operations run against. */
+    public VehicleManager getManager() {
+        return manager;
+    }
+
+    /**
+     * Runs any operation on a worker thread.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> operation) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            if (future.isDone()) {
+                return; // cancelled while queued
+            }
+            try {
+                future.complete(operation.call());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    // =======================
+    // Registry operations
+    // =======================
+
+    public CompletableFuture<Boolean> addCar(Car car) {
+        return submit(() -> manager.addCar(car));
+    }
+
+    public CompletableFuture<Car> findCar(String query) {
+        return submit(() -> manager.findCar(query));
+    }
+
+    public CompletableFuture<List<Car>> search(String query, int limit) {
+        return submit(() -> manager.search(query, limit));
+    }
+
+    public CompletableFuture<Boolean> deleteCar(String vin) {
+        return submit(() -> manager.deleteCar(vin));
+    }
+
+    public CompletableFuture<FleetStats> getStats() {
+        return submit(manager::getStats);
+    }
+
+    /** Returns the registry metrics as text (RegistryMetrics.dump()). */
+    public CompletableFuture<String> getMetricsReport() {
+        return submit(() -> manager.getMetrics().dump());
+    }
+
+    public CompletableFuture<FleetAnalytics.FleetReport> analyze(int yearBucketSize, int topN) {
+        return submit(() -> new FleetAnalytics(manager).analyze(yearBucketSize, topN));
+    }
+
+    /**
+     * Imports a CSV file; cancelling the future (or the tracker) stops the
+     * import after the current chunk.
+     */
+    public CompletableFuture<BulkImporter.ImportReport> importCsv(Path file, TaskProgress progress) {
+        return track(submit(() -> new BulkImporter(manager).setProgress(progress).importCsv(file)), progress);
+    }
+
+    /**
+     * Exports the registry; cancelling stops at the next buffer flush.
+     */
+    public CompletableFuture<Long> export(Path file, VehicleExporter.Format format, TaskProgress progress) {
+        return track(submit(() -> new VehicleExporter(manager).setProgress(progress).export(file, format)), progress);
+    }
+
+    /**
+     * Stops accepting work. Tasks already queued still run.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    /**
+     * Passes a cancel of the future on to the task's progress tracker.
+     */
+    private static <T> CompletableFuture<T> track(CompletableFuture<T> future, TaskProgress progress) {
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                progress.cancel();
+            }
+        });
+        return future;
+    }
+}
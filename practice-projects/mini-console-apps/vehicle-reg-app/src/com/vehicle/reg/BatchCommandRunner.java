@@ -0,0 +1,324 @@
+package com.vehicle.reg;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * -----------------------------------------------------------------------------
+ * BatchCommandRunner.java
+ *
+ * Headless command mode for the console app: reads one command per line
+ * from a file or stdin and writes one result line per outcome, so
+ * registry operations can be scripted and piped. Lines are CSV, using the
+ * same vehicle columns as the importer and exporter:
+ *
+ *   register,make,model,vin,plate,mileage,year
+ *   find,vinOrPlate
+ *   search,text[,limit]
+ *   delete,vin
+ *   list[,limit]                   (in VIN order)
+ *   stats
+ *
+ * Blank lines and lines starting with # are skipped. Results:
+ *
+ *   ADDED,vin                      DELETED,vin
+ *   REJECTED,line,reason           NOT_FOUND,query
+ *   FOUND,make,model,vin,plate,mileage,year   (find, search and list)
+ *   END,count                      (after the rows of a search or list)
+ *   STATS,total,mileageSum,averageMileage,oldestYear,newestYear
+ *   ERROR,line,message             (unknown command or bad arguments)
+ *
+ * Runs of consecutive register commands are committed together with
+ * VehicleManager.registerBatch() (PER_ITEM), and runs of deletes with
+ * deleteAll(), so each run takes the registry lock once. A run is always
+ * committed before the next different command, so commands still see the
+ * effect of every command above them.
+ * -----------------------------------------------------------------------------
+ */
+public class BatchCommandRunner {
+
+    // Longest run of registers or deletes committed under one lock
+    private static final int MAX_RUN = 4096;
+
+    // Vehicles fetched per page by list
+    private static final int LIST_PAGE = 1024;
+
+    // Output buffer size (characters)
+    private static final int OUT_BUFFER = 1 << 16;
+
+    private final VehicleManager manager;
+
+    // Pending run of registers (with their line numbers) or deletes
+    private final List<Car> pendingCars = new ArrayList<>();
+    private final List<Long> pendingLines = new ArrayList<>();
+    private final List<String> pendingVins = new ArrayList<>();
+
+    private final StringBuilder line = new StringBuilder(128);
+    private Writer out;
+    private Summary summary;
+
+    public BatchCommandRunner(VehicleManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * Runs every command from the input and writes the results.
+     * The output is flushed but neither stream is closed.
+     *
+     * @return counts of commands run and failed
+     */
+    public Summary run(Reader input, Writer output) throws IOException {
+        BufferedReader reader = input instanceof BufferedReader
+                ? (BufferedReader) input : new BufferedReader(input, OUT_BUFFER);
+        out = output instanceof BufferedWriter ? output : new BufferedWriter(output, OUT_BUFFER);
+        summary = new Summary();
+
+        String text;
+        long lineNo = 0;
+        while ((text = reader.readLine()) != null) {
+            lineNo++;
+            String trimmed = text.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            summary.commands++;
+            try {
+                execute(BulkImporter.splitCsv(trimmed), lineNo);
+            } catch (IllegalArgumentException e) {
+                flushRegisters(); // keep results in command order
+                flushDeletes();
+                fail("ERROR", lineNo, e.getMessage());
+            }
+        }
+        flushRegisters();
+        flushDeletes();
+        out.flush();
+        return summary;
+    }
+
+    // =======================
+    // Commands
+    // =======================
+
+    private void execute(List<String> args, long lineNo) throws IOException {
+        String command = args.get(0).toLowerCase(Locale.ROOT);
+        if (!command.equals("register")) {
+            flushRegisters();
+        }
+        if (!command.equals("delete")) {
+            flushDeletes();
+        }
+
+        switch (command) {
+            case "register":
+                expect(args, 7, 7);
+                pendingCars.add(toCar(args));
+                pendingLines.add(lineNo);
+                if (pendingCars.size() == MAX_RUN) {
+                    flushRegisters();
+                }
+                break;
+            case "delete":
+                expect(args, 2, 2);
+                pendingVins.add(args.get(1));
+                if (pendingVins.size() == MAX_RUN) {
+                    flushDeletes();
+                }
+                break;
+            case "find":
+                expect(args, 2, 2);
+                Car car = manager.findCar(args.get(1));
+                if (car == null) {
+                    write("NOT_FOUND", args.get(1));
+                } else {
+                    writeCar(car);
+                }
+                break;
+            case "search": {
+                expect(args, 2, 3);
+                List<Car> matches = manager.search(args.get(1), args.size() > 2 ? number(args.get(2), "limit") : 10);
+                for (Car match : matches) {
+                    writeCar(match);
+                }
+                write("END", String.valueOf(matches.size()));
+                break;
+            }
+            case "list":
+                expect(args, 1, 2);
+                list(args.size() > 1 ? number(args.get(1), "limit") : Integer.MAX_VALUE);
+                break;
+            case "stats":
+                expect(args, 1, 1);
+                FleetStats stats = manager.getStats();
+                line.setLength(0);
+                line.append("STATS,").append(stats.getTotal()).append(',').append(stats.getMileageSum())
+                    .append(',').append(stats.getAverageMileage());
+                if (stats.getTotal() > 0) {
+                    line.append(',').append(stats.getOldestYear()).append(',').append(stats.getNewestYear());
+                }
+                writeLine();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command: " + args.get(0));
+        }
+    }
+
+    /**
+     * Writes up to limit vehicles in VIN order, a page at a time, so the
+     * registry is never locked while output is being written.
+     */
+    private void list(int limit) throws IOException {
+        int count = 0;
+        String cursor = null;
+        while (count < limit) {
+            VehiclePage page = manager.getPage(cursor, Math.min(LIST_PAGE, limit - count));
+            for (Car car : page.getCars()) {
+                writeCar(car);
+            }
+            count += page.getCars().size();
+            if (!page.hasNext()) {
+                break;
+            }
+            cursor = page.getNextCursor();
+        }
+        write("END", String.valueOf(count));
+    }
+
+    /**
+     * Commits the pending run of registers and reports each one.
+     */
+    private void flushRegisters() throws IOException {
+        if (pendingCars.isEmpty()) {
+            return;
+        }
+        BatchResult result = manager.registerBatch(pendingCars, BatchResult.Mode.PER_ITEM);
+        for (int i = 0; i < result.size(); i++) {
+            if (result.getStatus(i) == BatchResult.Status.ADDED) {
+                write("ADDED", pendingCars.get(i).getVin());
+            } else {
+                fail("REJECTED", pendingLines.get(i), result.getReason(i));
+            }
+        }
+        pendingCars.clear();
+        pendingLines.clear();
+    }
+
+    /**
+     * Commits the pending run of deletes and reports each one.
+     */
+    private void flushDeletes() throws IOException {
+        if (pendingVins.isEmpty()) {
+            return;
+        }
+        boolean[] deleted = manager.deleteAll(pendingVins);
+        for (int i = 0; i < deleted.length; i++) {
+            if (deleted[i]) {
+                write("DELETED", pendingVins.get(i));
+            } else {
+                summary.failures++;
+                write("NOT_FOUND", pendingVins.get(i));
+            }
+        }
+        pendingVins.clear();
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    private static void expect(List<String> args, int min, int max) {
+        if (args.size() < min || args.size() > max) {
+            int from = min - 1;
+            int to = max - 1;
+            throw new IllegalArgumentException(args.get(0) + " takes "
+                    + (from == to ? String.valueOf(from) : from + "-" + to) + " argument(s)");
+        }
+    }
+
+    private static Car toCar(List<String> args) {
+        Car car = new Car();
+        car.setMake(args.get(1));
+        car.setModel(args.get(2));
+        car.setVin(args.get(3).toUpperCase(Locale.ROOT));
+        car.setPlateNumber(args.get(4).toUpperCase(Locale.ROOT));
+        car.setMileage(number(args.get(5), "mileage"));
+        car.setYear(number(args.get(6), "year"));
+        return car;
+    }
+
+    private static int number(String text, String field) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + text);
+        }
+    }
+
+    private void fail(String status, long lineNo, String message) throws IOException {
+        summary.failures++;
+        line.setLength(0);
+        line.append(status).append(',').append(lineNo).append(',');
+        appendCsv(message);
+        writeLine();
+    }
+
+    private void write(String status, String value) throws IOException {
+        line.setLength(0);
+        line.append(status).append(',');
+        appendCsv(value);
+        writeLine();
+    }
+
+    private void writeCar(Car car) throws IOException {
+        line.setLength(0);
+        line.append("FOUND,");
+        appendCsv(car.getMake());
+        line.append(',');
+        appendCsv(car.getModel());
+        line.append(',').append(car.getVin()).append(',').append(car.getPlateNumber())
+            .append(',').append(car.getMileage()).append(',').append(car.getYear());
+        writeLine();
+    }
+
+    private void writeLine() throws IOException {
+        line.append('\n');
+        out.append(line);
+    }
+
+    /** Appends a field, quoted only when it contains a comma, quote or line break. */
+    private void appendCsv(String value) {
+        String text = value == null ? "" : value;
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            line.append(text);
+        } else {
+            line.append('"').append(text.replace("\"", "\"\"")).append('"');
+        }
+    }
+
+    // =======================
+    // Result
+    // =======================
+
+    /**
+     * Counts of one run.
+     */
+    public static class Summary {
+
+        private long commands;
+        private long failures;
+
+        /** Returns the number of commands read (blank and comment lines excluded). */
+        public long getCommands() {
+            return commands;
+        }
+
+        /** Returns the number of rejected registers, deletes of unknown VINs and invalid commands. */
+        public long getFailures() {
+            return failures;
+        }
+    }
+}
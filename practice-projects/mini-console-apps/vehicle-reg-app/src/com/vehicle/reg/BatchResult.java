@@ -0,0 +1,79 @@
+package com.vehicle.reg;
+
+/**
+ * -----------------------------------------------------------------------------
+ * BatchResult.java
+ *
+ * Outcome of VehicleManager.registerBatch(): one status (and, for rejected
+ * entries, a reason) per vehicle, in the order the batch was given.
+ * -----------------------------------------------------------------------------
+ */
+public class BatchResult {
+
+    /** How a batch is committed */
+    public enum Mode {
+        /** Every vehicle is added, or none is if any entry is rejected */
+        ALL_OR_NOTHING,
+        /** Acceptable vehicles are added; rejected ones are reported */
+        PER_ITEM
+    }
+
+    /** What happened to one vehicle in the batch */
+    public enum Status {
+        /** Registered */
+        ADDED,
+        /** Failed validation (see getReason) */
+        INVALID,
+        /** Same VIN or plate as an earlier vehicle in the batch */
+        DUPLICATE_IN_BATCH,
+        /** VIN or plate is already registered */
+        ALREADY_REGISTERED,
+        /** Acceptable, but not added because another entry was rejected (ALL_OR_NOTHING) */
+        NOT_ADDED
+    }
+
+    private final Status[] statuses;
+    private final String[] reasons;
+    private int added;
+
+    BatchResult(int size) {
+        statuses = new Status[size];
+        reasons = new String[size];
+    }
+
+    /** Returns the number of vehicles in the batch. */
+    public int size() {
+        return statuses.length;
+    }
+
+    /** Returns the number of vehicles registered. */
+    public int getAddedCount() {
+        return added;
+    }
+
+    /** Returns true if every vehicle in the batch was registered. */
+    public boolean isFullyAdded() {
+        return added == statuses.length;
+    }
+
+    /** Returns what happened to the vehicle at the given batch position. */
+    public Status getStatus(int index) {
+        return statuses[index];
+    }
+
+    /** Returns why the vehicle was not added, or null if it was. */
+    public String getReason(int index) {
+        return reasons[index];
+    }
+
+    void set(int index, Status status, String reason) {
+        if (statuses[index] == Status.ADDED) {
+            added--;
+        }
+        statuses[index] = status;
+        reasons[index] = reason;
+        if (status == Status.ADDED) {
+            added++;
+        }
+    }
+}
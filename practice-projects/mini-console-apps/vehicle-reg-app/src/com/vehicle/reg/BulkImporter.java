@@ -0,0 +1,279 @@
+package com.vehicle.reg;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+/**
+ * -----------------------------------------------------------------------------
+ * BulkImporter.java
+ *
+ * Loads vehicles from a CSV file into a VehicleManager. Expected columns
+ * (same order as the vehicle table), with an optional header line:
+ *
+ *   make,model,vin,plate,mileage,year
+ *
+ * The file is streamed in chunks: each chunk is parsed and validated in
+ * parallel, then handed to VehicleManager.registerBatch() so duplicate VINs
+ * and plates are checked under one lock per chunk rather than once per row.
+ * Every rejected row is reported with its line number and reason.
+ *
+ * An optional TaskProgress receives the fraction of the file read after
+ * each chunk, and a cancel stops the import before the next chunk (rows
+ * already imported are kept).
+ * -----------------------------------------------------------------------------
+ */
+public class BulkImporter {
+
+    // Rows parsed and inserted together
+    private static final int CHUNK_ROWS = 16_384;
+
+    private final VehicleManager manager;
+    private boolean requireCheckDigit;
+    private TaskProgress progress = new TaskProgress();
+
+    public BulkImporter(VehicleManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * Also rejects VINs whose ISO 3779 check digit does not match.
+     * Off by default, as with the registration screens.
+     */
+    public BulkImporter setRequireCheckDigit(boolean requireCheckDigit) {
+        this.requireCheckDigit = requireCheckDigit;
+        return this;
+    }
+
+    /**
+     * Reports progress to, and checks for cancellation from, the given tracker.
+     */
+    public BulkImporter setProgress(TaskProgress progress) {
+        this.progress = progress;
+        return this;
+    }
+
+    /**
+     * Imports every row of a CSV file.
+     *
+     * @param file UTF-8 CSV file
+     * @return summary of imported and rejected rows
+     * @throws IOException if the file cannot be read
+     * @throws java.util.concurrent.CancellationException if the progress
+     *         tracker was cancelled; earlier chunks stay imported
+     */
+    public ImportReport importCsv(Path file) throws IOException {
+        ImportReport report = new ImportReport();
+        double fileSize = Math.max(1, Files.size(file));
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<String> chunk = new ArrayList<>(CHUNK_ROWS);
+            long firstLine = 1;
+            long lineNumber = 0;
+            long charsRead = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                charsRead += line.length() + 1;
+                if (lineNumber == 1 && isHeader(line)) {
+                    firstLine = 2;
+                    continue;
+                }
+                chunk.add(line);
+                if (chunk.size() == CHUNK_ROWS) {
+                    progress.checkCancelled();
+                    importChunk(chunk, firstLine, report);
+                    progress.report(charsRead / fileSize);
+                    firstLine = lineNumber + 1;
+                    chunk.clear();
+                }
+            }
+            progress.checkCancelled();
+            importChunk(chunk, firstLine, report);
+            progress.report(1);
+        }
+        return report;
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    /**
+     * Parses a chunk in parallel, then inserts the valid rows in file order.
+     */
+    private void importChunk(List<String> lines, long firstLine, ImportReport report) {
+        int count = lines.size();
+        Car[] cars = new Car[count];
+        String[] errors = new String[count];
+        int maxYear = VehicleValidator.maxYear();
+        IntStream.range(0, count).parallel().forEach(i -> {
+            String line = lines.get(i);
+            if (line.trim().isEmpty()) {
+                return; // blank lines are skipped, not rejected
+            }
+            try {
+                cars[i] = parse(line, maxYear);
+            } catch (IllegalArgumentException e) {
+                errors[i] = e.getMessage();
+            }
+        });
+
+        List<Car> valid = new ArrayList<>(count);
+        int[] rowOf = new int[count];
+        for (int i = 0; i < count; i++) {
+            if (cars[i] != null) {
+                rowOf[valid.size()] = i;
+                valid.add(cars[i]);
+            }
+        }
+
+        BatchResult result = manager.registerBatch(valid, BatchResult.Mode.PER_ITEM);
+        report.imported += result.getAddedCount();
+        for (int j = 0; j < result.size(); j++) {
+            if (result.getStatus(j) != BatchResult.Status.ADDED) {
+                errors[rowOf[j]] = result.getReason(j);
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            if (errors[i] != null) {
+                report.reject(firstLine + i, errors[i]);
+            }
+        }
+    }
+
+    /**
+     * Parses and validates one CSV row.
+     *
+     * @param maxYear newest accepted year, read once per chunk
+     * @throws IllegalArgumentException with the rejection reason
+     */
+    private Car parse(String line, int maxYear) {
+        List<String> fields = splitCsv(line);
+        if (fields.size() != 6) {
+            throw new IllegalArgumentException("Expected 6 fields but found " + fields.size());
+        }
+        Car car = new Car();
+        car.setMake(fields.get(0));
+        car.setModel(fields.get(1));
+        car.setVin(fields.get(2).toUpperCase(Locale.ROOT));
+        car.setPlateNumber(fields.get(3).toUpperCase(Locale.ROOT));
+        car.setMileage(parseInt(fields.get(4), "mileage"));
+        car.setYear(parseInt(fields.get(5), "year"));
+
+        String problem = VehicleValidator.findProblem(car, maxYear);
+        if (problem != null) {
+            throw new IllegalArgumentException(problem);
+        }
+        if (requireCheckDigit && !VehicleValidator.hasValidCheckDigit(car.getVin())) {
+            throw new IllegalArgumentException("VIN check digit does not match: " + car.getVin());
+        }
+        return car;
+    }
+
+    private static int parseInt(String text, String field) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + text);
+        }
+    }
+
+    private static boolean isHeader(String line) {
+        List<String> fields = splitCsv(line);
+        return fields.size() > 2 && fields.get(2).equalsIgnoreCase("vin");
+    }
+
+    /**
+     * Splits a CSV line on commas, honouring double-quoted fields ("" is an
+     * escaped quote). Fields are trimmed.
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(6);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    // =======================
+    // Import results
+    // =======================
+
+    /**
+     * Outcome of an import: how many rows were added and why others were not.
+     */
+    public static class ImportReport {
+
+        private long imported;
+        private final List<Rejection> rejections = new ArrayList<>();
+
+        /** Returns the number of vehicles added to the registry. */
+        public long getImported() {
+            return imported;
+        }
+
+        /** Returns the rejected rows in file order. */
+        public List<Rejection> getRejections() {
+            return Collections.unmodifiableList(rejections);
+        }
+
+        private void reject(long line, String reason) {
+            rejections.add(new Rejection(line, reason));
+        }
+    }
+
+    /**
+     * A CSV row that was not imported.
+     */
+    public static class Rejection {
+
+        private final long line;
+        private final String reason;
+
+        public Rejection(long line, String reason) {
+            this.line = line;
+            this.reason = reason;
+        }
+
+        /** Returns the 1-based line number in the file. */
+        public long getLine() {
+            return line;
+        }
+
+        /** Returns why the row was rejected. */
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "Line " + line + ": " + reason;
+        }
+    }
+}
@@ -0,0 +1,884 @@
+package com.vehicle.reg;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * -----------------------------------------------------------------------------
+ * CarStore.java
+ *
+ * Compact in-memory storage engine behind VehicleManager. Instead of one Car
+ * object (plus four Strings) per vehicle, every field lives in a primitive
+ * column indexed by a slot number:
+ *
+ *   VIN    -> 17 bytes per slot    plate   -> 8 bytes per slot (zero padded)
+ *   year   -> int[]                mileage -> int[]
+ *   make / model -> int[] codes into a StringDictionary each
+ *
+ * VINs and plates are stored upper-cased. Two open-addressing hash tables map
+ * a VIN or plate to its slot without creating any key objects, so duplicate
+ * checks and lookups stay constant-time.
+ *
+ * Car objects are only created on request, either as a fresh copy or by
+ * filling in a caller-supplied Car (a flyweight reused across slots).
+ *
+ * Deleting marks the slot dead (a tombstone) and unlinks it from the hash
+ * tables in constant time; nothing is shifted. Once dead slots outnumber
+ * live ones (isSparse()), the owner calls compact() to pack the live slots
+ * together again in registration order, so the cost of packing is spread
+ * over many deletes. Callers walking slots 0..slotCount()-1 must skip
+ * slots that are not live.
+ *
+ * PostingIndexes on year, make, model and mileage band list the slots for
+ * each value, for range and filter queries (see VehicleQuery). They are
+ * appended to on add and rebuilt when slots are packed; compactions()
+ * tells readers holding slot numbers that they have changed.
+ *
+ * snapshot() returns a frozen copy of the store that shares its column
+ * arrays, for long reads that must not hold the registry lock. This is
+ * safe because slots are append-only: adds write past every snapshot's
+ * slotCount, and while a snapshot is open the two writes that would touch
+ * shared data copy it first (a delete copies the dead-slot bitmap, a
+ * compaction packs into new arrays). Snapshots have no hash tables or
+ * secondary indexes; they are for walking slots, not for lookups.
+ *
+ * Not thread-safe; VehicleManager guards it with its read/write lock.
+ * -----------------------------------------------------------------------------
+ */
+class CarStore {
+
+    static final int VIN_WIDTH = ColumnarSnapshot.VIN_WIDTH;
+    static final int PLATE_WIDTH = ColumnarSnapshot.PLATE_WIDTH;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Compact only once at least this many slots are dead
+    private static final int MIN_DEAD_TO_COMPACT = 1024;
+
+    /** Width in km of each mileage band in the mileage index */
+    static final int MILEAGE_BAND = 10_000;
+
+    // Slots 0..slotCount-1 have been handed out; size of them are live
+    private int slotCount;
+    private int size;
+
+    // One bit per slot, set when the slot has been deleted
+    private long[] dead = new long[INITIAL_CAPACITY / 64];
+
+    // Column storage
+    private byte[] vins = new byte[INITIAL_CAPACITY * VIN_WIDTH];
+    private byte[] plates = new byte[INITIAL_CAPACITY * PLATE_WIDTH];
+    private int[] years = new int[INITIAL_CAPACITY];
+    private int[] mileages = new int[INITIAL_CAPACITY];
+    private int[] makeCodes = new int[INITIAL_CAPACITY];
+    private int[] modelCodes = new int[INITIAL_CAPACITY];
+
+    // Distinct make and model spellings, shared by every slot
+    private final StringDictionary makeDictionary;
+    private final StringDictionary modelDictionary;
+
+    // Hash tables holding slot + 1 (0 marks an empty bucket)
+    private int[] vinTable = new int[INITIAL_CAPACITY * 2];
+    private int[] plateTable = new int[INITIAL_CAPACITY * 2];
+
+    // Secondary indexes: value -> ascending slots
+    private final PostingIndex yearIndex;
+    private final PostingIndex makeIndex;
+    private final PostingIndex modelIndex;
+    private final PostingIndex mileageIndex;
+
+    // Number of times slots have been renumbered
+    private int compactions;
+
+    // Number of adds and deletes so far
+    private long version;
+
+    // Snapshots not yet released (shared between a store and its snapshots)
+    private final AtomicInteger openSnapshots;
+
+    // Set when a snapshot was taken since the bitmap/columns were last
+    // copied; only snapshot() sets them, always to true
+    private boolean deadShared;
+    private boolean columnsShared;
+
+    CarStore() {
+        makeDictionary = new StringDictionary();
+        modelDictionary = new StringDictionary();
+        yearIndex = new PostingIndex();
+        makeIndex = new PostingIndex();
+        modelIndex = new PostingIndex();
+        mileageIndex = new PostingIndex();
+        openSnapshots = new AtomicInteger();
+    }
+
+    /**
+     * Frozen copy of a store, sharing its columns (see snapshot()).
+     */
+    private CarStore(CarStore live) {
+        slotCount = live.slotCount;
+        size = live.size;
+        dead = live.dead;
+        vins = live.vins;
+        plates = live.plates;
+        years = live.years;
+        mileages = live.mileages;
+        makeCodes = live.makeCodes;
+        modelCodes = live.modelCodes;
+        makeDictionary = live.makeDictionary.copy();
+        modelDictionary = live.modelDictionary.copy();
+        vinTable = null;
+        plateTable = null;
+        yearIndex = null;
+        makeIndex = null;
+        modelIndex = null;
+        mileageIndex = null;
+        compactions = live.compactions;
+        version = live.version;
+        openSnapshots = live.openSnapshots;
+    }
+
+    /** Returns the number of stored vehicles. */
+    int size() {
+        return size;
+    }
+
+    /** Returns one past the highest slot in use, live or dead. */
+    int slotCount() {
+        return slotCount;
+    }
+
+    /** Returns true if the slot holds a vehicle that has not been deleted. */
+    boolean isLive(int slot) {
+        return slot < slotCount && (dead[slot >>> 6] & (1L << slot)) == 0;
+    }
+
+    /** Returns how many times compact() has renumbered the slots. */
+    int compactions() {
+        return compactions;
+    }
+
+    /** Returns the number of adds and deletes made so far. */
+    long version() {
+        return version;
+    }
+
+    /**
+     * Returns a read-only copy of the store as it is now. Only the make and
+     * model dictionaries are copied, so this is cheap at any size. Safe to
+     * call under a read lock; the copy can then be read without any lock
+     * until release() is called.
+     *
+     * The copy supports the column accessors, isLive(), get() and read(),
+     * but not key lookups or the secondary indexes.
+     */
+    CarStore snapshot() {
+        openSnapshots.incrementAndGet();
+        deadShared = true;
+        columnsShared = true;
+        return new CarStore(this);
+    }
+
+    /**
+     * Marks a snapshot as finished, so the live store may write over the
+     * arrays it shared. Call exactly once per snapshot.
+     */
+    void release() {
+        openSnapshots.decrementAndGet();
+    }
+
+    /**
+     * Returns the approximate heap used by the columns, hash tables,
+     * dictionaries and secondary indexes, in bytes.
+     */
+    long estimatedBytes() {
+        long bytes = vins.length + plates.length + 8L * dead.length
+                + 4L * (years.length + mileages.length + makeCodes.length + modelCodes.length)
+                + 4L * (vinTable.length + plateTable.length);
+        // each dictionary value: two Strings plus a map entry and a list slot
+        bytes += 160L * (makeDictionary.size() + modelDictionary.size());
+        return bytes + yearIndex.estimatedBytes() + makeIndex.estimatedBytes()
+                + modelIndex.estimatedBytes() + mileageIndex.estimatedBytes();
+    }
+
+    // =======================
+    // Secondary indexes
+    // =======================
+
+    /** Slots by model year. */
+    PostingIndex yearIndex() {
+        return yearIndex;
+    }
+
+    /** Slots by make code. */
+    PostingIndex makeIndex() {
+        return makeIndex;
+    }
+
+    /** Slots by model code. */
+    PostingIndex modelIndex() {
+        return modelIndex;
+    }
+
+    /** Slots by mileage band (mileage / MILEAGE_BAND, rounded down). */
+    PostingIndex mileageIndex() {
+        return mileageIndex;
+    }
+
+    // =======================
+    // Lookups
+    // =======================
+
+    /**
+     * Returns the slot holding this VIN (case-insensitive), or -1.
+     */
+    int slotOfVin(CharSequence vin) {
+        return find(vinTable, vins, VIN_WIDTH, vin);
+    }
+
+    /**
+     * Returns the slot holding this plate (case-insensitive), or -1.
+     */
+    int slotOfPlate(CharSequence plate) {
+        return find(plateTable, plates, PLATE_WIDTH, plate);
+    }
+
+    // =======================
+    // Column accessors
+    // =======================
+
+    String vin(int slot) {
+        return ascii(vins, slot * VIN_WIDTH, VIN_WIDTH);
+    }
+
+    String plate(int slot) {
+        return ascii(plates, slot * PLATE_WIDTH, PLATE_WIDTH);
+    }
+
+    int year(int slot) {
+        return years[slot];
+    }
+
+    int mileage(int slot) {
+        return mileages[slot];
+    }
+
+    String make(int slot) {
+        return makeDictionary.decode(makeCodes[slot]);
+    }
+
+    String model(int slot) {
+        return modelDictionary.decode(modelCodes[slot]);
+    }
+
+    int makeCode(int slot) {
+        return makeCodes[slot];
+    }
+
+    int modelCode(int slot) {
+        return modelCodes[slot];
+    }
+
+    /**
+     * Returns the code for a make (case-insensitive), or -1 if no vehicle
+     * has ever been stored with it.
+     */
+    int makeCodeOf(String make) {
+        return makeDictionary.codeOf(make);
+    }
+
+    /**
+     * Returns the code for a model (case-insensitive), or -1 if unseen.
+     */
+    int modelCodeOf(String model) {
+        return modelDictionary.codeOf(model);
+    }
+
+    String decodeMake(int code) {
+        return makeDictionary.decode(code);
+    }
+
+    String decodeModel(int code) {
+        return modelDictionary.decode(code);
+    }
+
+    /** Returns the number of distinct makes seen so far. */
+    int makeCount() {
+        return makeDictionary.size();
+    }
+
+    /** Returns the number of distinct models seen so far. */
+    int modelCount() {
+        return modelDictionary.size();
+    }
+
+    /**
+     * Returns true if the slot's VIN contains the given text (case-insensitive).
+     */
+    boolean vinContains(int slot, CharSequence text) {
+        return contains(vins, slot * VIN_WIDTH, VIN_WIDTH, text);
+    }
+
+    /**
+     * Returns true if the slot's plate contains the given text (case-insensitive).
+     */
+    boolean plateContains(int slot, CharSequence text) {
+        return contains(plates, slot * PLATE_WIDTH, PLATE_WIDTH, text);
+    }
+
+    /**
+     * Compares two slots' VINs. The stored bytes are upper-case ASCII, so
+     * byte order is alphabetical order.
+     */
+    int compareVins(int a, int b) {
+        return Arrays.compare(vins, a * VIN_WIDTH, (a + 1) * VIN_WIDTH, vins, b * VIN_WIDTH, (b + 1) * VIN_WIDTH);
+    }
+
+    /**
+     * Compares two slots' plates alphabetically (a shorter plate sorts
+     * before a longer one that starts with it).
+     */
+    int comparePlates(int a, int b) {
+        return Arrays.compare(plates, a * PLATE_WIDTH, (a + 1) * PLATE_WIDTH,
+                plates, b * PLATE_WIDTH, (b + 1) * PLATE_WIDTH);
+    }
+
+    /**
+     * Compares a slot's VIN with text (case-insensitive), as String.compareTo
+     * would: negative if the VIN sorts first.
+     */
+    int compareVinTo(int slot, CharSequence text) {
+        return compareTo(vins, slot * VIN_WIDTH, VIN_WIDTH, text);
+    }
+
+    /**
+     * Compares a slot's plate with text (case-insensitive).
+     */
+    int comparePlateTo(int slot, CharSequence text) {
+        return compareTo(plates, slot * PLATE_WIDTH, PLATE_WIDTH, text);
+    }
+
+    /** Returns true if the slot's VIN starts with the text (case-insensitive). */
+    boolean vinStartsWith(int slot, CharSequence prefix) {
+        return startsWith(vins, slot * VIN_WIDTH, VIN_WIDTH, prefix);
+    }
+
+    /** Returns true if the slot's plate starts with the text (case-insensitive). */
+    boolean plateStartsWith(int slot, CharSequence prefix) {
+        return startsWith(plates, slot * PLATE_WIDTH, PLATE_WIDTH, prefix);
+    }
+
+    /**
+     * Sorts the first count slot numbers into the given order without boxing
+     * them: a stable merge sort, so O(count log count) comparisons.
+     */
+    static void sortSlots(int[] slots, int count, IntBinaryOperator order) {
+        // Insertion-sort short runs, then merge runs of doubling width
+        final int run = 32;
+        for (int from = 0; from < count; from += run) {
+            int to = Math.min(from + run, count);
+            for (int i = from + 1; i < to; i++) {
+                int slot = slots[i];
+                int j = i - 1;
+                while (j >= from && order.applyAsInt(slots[j], slot) > 0) {
+                    slots[j + 1] = slots[j];
+                    j--;
+                }
+                slots[j + 1] = slot;
+            }
+        }
+        int[] from = slots;
+        int[] to = new int[count];
+        for (int width = run; width < count; width *= 2) {
+            for (int low = 0; low < count; low += 2 * width) {
+                int mid = Math.min(low + width, count);
+                int high = Math.min(low + 2 * width, count);
+                int i = low;
+                int j = mid;
+                for (int k = low; k < high; k++) {
+                    to[k] = j >= high || (i < mid && order.applyAsInt(from[i], from[j]) <= 0) ? from[i++] : from[j++];
+                }
+            }
+            int[] swap = from;
+            from = to;
+            to = swap;
+        }
+        if (from != slots) {
+            System.arraycopy(from, 0, slots, 0, count);
+        }
+    }
+
+    /**
+     * Writes a slot's VIN as ASCII bytes, without creating a String.
+     */
+    void copyVin(int slot, ByteBuffer out) {
+        copyAscii(vins, slot * VIN_WIDTH, VIN_WIDTH, out);
+    }
+
+    /**
+     * Replaces the builder's contents with a slot's VIN, without creating
+     * a String (e.g. to keep a paging cursor).
+     */
+    void copyVin(int slot, StringBuilder out) {
+        out.setLength(0);
+        for (int i = slot * VIN_WIDTH; i < (slot + 1) * VIN_WIDTH && vins[i] != 0; i++) {
+            out.append((char) vins[i]);
+        }
+    }
+
+    /**
+     * Writes a slot's plate as ASCII bytes, without creating a String.
+     */
+    void copyPlate(int slot, ByteBuffer out) {
+        copyAscii(plates, slot * PLATE_WIDTH, PLATE_WIDTH, out);
+    }
+
+    /**
+     * Copies a slot into the given Car, so one Car can be reused as a
+     * lightweight view while walking many slots.
+     *
+     * @return the same Car, for chaining
+     */
+    Car read(int slot, Car into) {
+        into.setMake(make(slot));
+        into.setModel(model(slot));
+        into.setVin(vin(slot));
+        into.setPlateNumber(plate(slot));
+        into.setYear(years[slot]);
+        into.setMileage(mileages[slot]);
+        return into;
+    }
+
+    /**
+     * Returns a new Car holding a copy of the slot.
+     */
+    Car get(int slot) {
+        return read(slot, new Car());
+    }
+
+    // =======================
+    // Updates
+    // =======================
+
+    /**
+     * Checks that a car's VIN and plate fit the fixed-width columns.
+     *
+     * @throws IllegalArgumentException if the VIN is not 17 ASCII characters
+     *                                  or the plate is empty, longer than 8
+     *                                  characters or not ASCII
+     */
+    static void checkStorable(Car car) {
+        String vin = car.getVin();
+        String plate = car.getPlateNumber();
+        if (vin == null || vin.length() != VIN_WIDTH || !isAscii(vin)) {
+            throw new IllegalArgumentException("VIN must be exactly 17 letters/numbers: " + vin);
+        }
+        if (plate == null || plate.isEmpty() || plate.length() > PLATE_WIDTH || !isAscii(plate)) {
+            throw new IllegalArgumentException("Plate must be 1 to 8 letters/numbers: " + plate);
+        }
+    }
+
+    /**
+     * Stores a car unless its VIN or plate is already present.
+     * The car must pass {@link #checkStorable(Car)}.
+     *
+     * @return the new slot, or -1 if the VIN or plate is a duplicate
+     */
+    int add(Car car) {
+        if (slotOfVin(car.getVin()) >= 0 || slotOfPlate(car.getPlateNumber()) >= 0) {
+            return -1;
+        }
+        ensureCapacity(slotCount + 1);
+        int slot = slotCount++;
+        size++;
+        putAscii(vins, slot * VIN_WIDTH, VIN_WIDTH, car.getVin());
+        putAscii(plates, slot * PLATE_WIDTH, PLATE_WIDTH, car.getPlateNumber());
+        years[slot] = car.getYear();
+        mileages[slot] = car.getMileage();
+        makeCodes[slot] = makeDictionary.encode(car.getMake());
+        modelCodes[slot] = modelDictionary.encode(car.getModel());
+        version++;
+        insert(vinTable, vins, VIN_WIDTH, slot);
+        insert(plateTable, plates, PLATE_WIDTH, slot);
+        index(slot);
+        return slot;
+    }
+
+    /**
+     * Appends every row of a columnar snapshot file. The VIN and plate bytes
+     * and the int columns are copied straight from the mapped file, and make
+     * and model codes are translated once per distinct value, so no Car or
+     * String is built per row. Rows whose VIN or plate is already stored are
+     * skipped, as add() would.
+     *
+     * @return the first slot used; the loaded rows fill the slots from
+     *         there up to slotCount()
+     * @throws IllegalArgumentException if a row's VIN or plate could not
+     *                                  have passed checkStorable()
+     */
+    int addAll(ColumnarSnapshot snapshot) {
+        int[] makeMap = new int[snapshot.makeCount()];
+        for (int code = 0; code < makeMap.length; code++) {
+            makeMap[code] = makeDictionary.encode(snapshot.make(code));
+        }
+        int[] modelMap = new int[snapshot.modelCount()];
+        for (int code = 0; code < modelMap.length; code++) {
+            modelMap[code] = modelDictionary.encode(snapshot.model(code));
+        }
+
+        ensureCapacity(slotCount + snapshot.size());
+        int first = slotCount;
+        for (int row = 0; row < snapshot.size(); row++) {
+            int slot = slotCount;
+            snapshot.copyVin(row, vins, slot * VIN_WIDTH);
+            snapshot.copyPlate(row, plates, slot * PLATE_WIDTH);
+            if (!upperAscii(vins, slot * VIN_WIDTH, VIN_WIDTH, VIN_WIDTH)
+                    || !upperAscii(plates, slot * PLATE_WIDTH, PLATE_WIDTH, 1)) {
+                throw new IllegalArgumentException("Snapshot row " + row + " has an invalid VIN or plate");
+            }
+            if (find(vinTable, vins, VIN_WIDTH, slot) >= 0 || find(plateTable, plates, PLATE_WIDTH, slot) >= 0) {
+                continue; // duplicate: the slot is reused by the next row
+            }
+            years[slot] = snapshot.year(row);
+            mileages[slot] = snapshot.mileage(row);
+            makeCodes[slot] = makeMap[snapshot.makeCode(row)];
+            modelCodes[slot] = modelMap[snapshot.modelCode(row)];
+            slotCount++;
+            size++;
+            version++;
+            insert(vinTable, vins, VIN_WIDTH, slot);
+            insert(plateTable, plates, PLATE_WIDTH, slot);
+            index(slot);
+        }
+        return first;
+    }
+
+    /**
+     * Deletes a live slot in constant time. Other slots keep their numbers.
+     */
+    void remove(int slot) {
+        delete(vinTable, vins, VIN_WIDTH, slot);
+        delete(plateTable, plates, PLATE_WIDTH, slot);
+        if (deadShared) {
+            if (openSnapshots.get() > 0) {
+                dead = dead.clone(); // open snapshots keep the old bitmap
+            }
+            deadShared = false;
+        }
+        dead[slot >>> 6] |= 1L << slot;
+        size--;
+        version++;
+    }
+
+    /**
+     * Returns true once enough slots are dead that compact() should run.
+     */
+    boolean isSparse() {
+        int deadSlots = slotCount - size;
+        return deadSlots >= MIN_DEAD_TO_COMPACT && deadSlots > size;
+    }
+
+    /**
+     * Packs live slots to the front in their existing order and rebuilds
+     * the hash tables and secondary indexes. Slot numbers change.
+     *
+     * Packing is done in place unless a snapshot still shares the columns,
+     * in which case the live slots are copied into new arrays.
+     *
+     * @return each old slot's new number (-1 for dead slots), for callers
+     *         that keep slot numbers of their own
+     */
+    int[] compact() {
+        yearIndex.clear();
+        makeIndex.clear();
+        modelIndex.clear();
+        mileageIndex.clear();
+        boolean copy = columnsShared && openSnapshots.get() > 0;
+        byte[] oldVins = vins;
+        byte[] oldPlates = plates;
+        int[] oldYears = years;
+        int[] oldMileages = mileages;
+        int[] oldMakeCodes = makeCodes;
+        int[] oldModelCodes = modelCodes;
+        if (copy) {
+            vins = new byte[vins.length];
+            plates = new byte[plates.length];
+            years = new int[years.length];
+            mileages = new int[mileages.length];
+            makeCodes = new int[makeCodes.length];
+            modelCodes = new int[modelCodes.length];
+        }
+        int[] renumbered = new int[slotCount];
+        int target = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (!isLive(slot)) {
+                renumbered[slot] = -1;
+                continue;
+            }
+            renumbered[slot] = target;
+            if (slot != target || copy) {
+                System.arraycopy(oldVins, slot * VIN_WIDTH, vins, target * VIN_WIDTH, VIN_WIDTH);
+                System.arraycopy(oldPlates, slot * PLATE_WIDTH, plates, target * PLATE_WIDTH, PLATE_WIDTH);
+                years[target] = oldYears[slot];
+                mileages[target] = oldMileages[slot];
+                makeCodes[target] = oldMakeCodes[slot];
+                modelCodes[target] = oldModelCodes[slot];
+            }
+            index(target);
+            target++;
+        }
+        if (copy) {
+            dead = new long[dead.length];
+        } else {
+            Arrays.fill(dead, 0);
+        }
+        deadShared = false;
+        columnsShared = false;
+        slotCount = target;
+        compactions++;
+
+        vinTable = rehash(vinTable.length, vins, VIN_WIDTH);
+        plateTable = rehash(plateTable.length, plates, PLATE_WIDTH);
+        return renumbered;
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    private void index(int slot) {
+        yearIndex.add(years[slot], slot);
+        makeIndex.add(makeCodes[slot], slot);
+        modelIndex.add(modelCodes[slot], slot);
+        mileageIndex.add(Math.floorDiv(mileages[slot], MILEAGE_BAND), slot);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= years.length) {
+            return;
+        }
+        int capacity = Math.max(needed, years.length + (years.length >> 1));
+        vins = Arrays.copyOf(vins, capacity * VIN_WIDTH);
+        plates = Arrays.copyOf(plates, capacity * PLATE_WIDTH);
+        years = Arrays.copyOf(years, capacity);
+        mileages = Arrays.copyOf(mileages, capacity);
+        makeCodes = Arrays.copyOf(makeCodes, capacity);
+        modelCodes = Arrays.copyOf(modelCodes, capacity);
+        dead = Arrays.copyOf(dead, (capacity + 63) / 64);
+        deadShared = false; // every array is a new copy
+        columnsShared = false;
+
+        // Keep the hash tables at most half full
+        int buckets = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        vinTable = rehash(buckets, vins, VIN_WIDTH);
+        plateTable = rehash(buckets, plates, PLATE_WIDTH);
+    }
+
+    private int[] rehash(int buckets, byte[] column, int width) {
+        int[] table = new int[buckets];
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (isLive(slot)) {
+                insert(table, column, width, slot);
+            }
+        }
+        return table;
+    }
+
+    private static int find(int[] table, byte[] column, int width, CharSequence key) {
+        if (table == null) {
+            throw new UnsupportedOperationException("Snapshots do not support lookups");
+        }
+        if (key == null || key.length() == 0 || key.length() > width) {
+            return -1;
+        }
+        int mask = table.length - 1;
+        for (int i = hash(key) & mask; table[i] != 0; i = (i + 1) & mask) {
+            int slot = table[i] - 1;
+            if (matches(column, slot * width, width, key)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the live slot whose key equals the one stored at the given
+     * slot (which need not be in the table yet), or -1.
+     */
+    private static int find(int[] table, byte[] column, int width, int slot) {
+        int mask = table.length - 1;
+        int offset = slot * width;
+        for (int i = hash(column, offset, width) & mask; table[i] != 0; i = (i + 1) & mask) {
+            int other = (table[i] - 1) * width;
+            if (Arrays.equals(column, other, other + width, column, offset, offset + width)) {
+                return table[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    private static void insert(int[] table, byte[] column, int width, int slot) {
+        int mask = table.length - 1;
+        int i = hash(column, slot * width, width) & mask;
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = slot + 1;
+    }
+
+    /**
+     * Removes a slot from a linear-probing table, moving later entries of the
+     * same probe run back so lookups never stop early at the freed bucket.
+     */
+    private static void delete(int[] table, byte[] column, int width, int slot) {
+        int mask = table.length - 1;
+        int i = hash(column, slot * width, width) & mask;
+        while (table[i] != slot + 1) {
+            i = (i + 1) & mask;
+        }
+        table[i] = 0;
+        for (int j = (i + 1) & mask; table[j] != 0; j = (j + 1) & mask) {
+            int home = hash(column, (table[j] - 1) * width, width) & mask;
+            // Move the entry back if its home bucket is not between i and j
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                table[i] = table[j];
+                table[j] = 0;
+                i = j;
+            }
+        }
+    }
+
+    private static int hash(CharSequence key) {
+        int h = 0;
+        for (int i = 0; i < key.length(); i++) {
+            h = 31 * h + upper(key.charAt(i));
+        }
+        return mix(h);
+    }
+
+    private static int hash(byte[] column, int offset, int width) {
+        int h = 0;
+        for (int i = 0; i < width && column[offset + i] != 0; i++) {
+            h = 31 * h + column[offset + i];
+        }
+        return mix(h);
+    }
+
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(byte[] column, int offset, int width, CharSequence key) {
+        int i = 0;
+        for (; i < key.length(); i++) {
+            if (column[offset + i] != upper(key.charAt(i))) {
+                return false;
+            }
+        }
+        return i == width || column[offset + i] == 0;
+    }
+
+    private static int compareTo(byte[] column, int offset, int width, CharSequence text) {
+        for (int i = 0; i < width; i++) {
+            int a = column[offset + i]; // 0 once the stored key has ended
+            int b = i < text.length() ? upper(text.charAt(i)) : 0;
+            if (a != b) {
+                return a - b;
+            }
+            if (a == 0) {
+                return 0;
+            }
+        }
+        return text.length() > width ? -1 : 0;
+    }
+
+    private static boolean startsWith(byte[] column, int offset, int width, CharSequence prefix) {
+        if (prefix.length() > width) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (column[offset + i] != upper(prefix.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(byte[] column, int offset, int width, CharSequence text) {
+        int length = 0;
+        while (length < width && column[offset + length] != 0) {
+            length++;
+        }
+        for (int start = 0; start + text.length() <= length; start++) {
+            int i = 0;
+            while (i < text.length() && column[offset + start + i] == upper(text.charAt(i))) {
+                i++;
+            }
+            if (i == text.length()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int upper(int c) {
+        return (c >= 'a' && c <= 'z') ? c - ('a' - 'A') : c;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == 0 || c > 127) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Upper-cases a zero-padded ASCII field in place.
+     *
+     * @param minLength fewest characters the field must hold
+     * @return false if the field is too short or holds non-ASCII bytes or
+     *         characters after the padding
+     */
+    private static boolean upperAscii(byte[] column, int offset, int width, int minLength) {
+        int length = 0;
+        while (length < width && column[offset + length] != 0) {
+            if (column[offset + length] < 0) {
+                return false;
+            }
+            column[offset + length] = (byte) upper(column[offset + length]);
+            length++;
+        }
+        for (int i = length; i < width; i++) {
+            if (column[offset + i] != 0) {
+                return false;
+            }
+        }
+        return length >= minLength;
+    }
+
+    private static void putAscii(byte[] column, int offset, int width, String text) {
+        for (int i = 0; i < width; i++) {
+            column[offset + i] = i < text.length() ? (byte) upper(text.charAt(i)) : 0;
+        }
+    }
+
+    private static void copyAscii(byte[] column, int offset, int width, ByteBuffer out) {
+        int length = 0;
+        while (length < width && column[offset + length] != 0) {
+            length++;
+        }
+        out.put(column, offset, length);
+    }
+
+    private static String ascii(byte[] column, int offset, int width) {
+        int length = 0;
+        while (length < width && column[offset + length] != 0) {
+            length++;
+        }
+        return new String(column, offset, length, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,434 @@
+package com.vehicle.reg;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * -----------------------------------------------------------------------------
+ * ColumnarSnapshot.java
+ *
+ * On-disk snapshot of the registry stored column by column instead of
+ * vehicle by vehicle. On startup the file is memory-mapped and each column
+ * is copied straight into the matching CarStore column (see
+ * CarStore.addAll()), so loading builds no Car or String per vehicle.
+ *
+ * An opened snapshot can also be queried in place, read-only, without
+ * loading a registry: indexOfVin() binary-searches the mapped VIN column,
+ * indexOfPlate() scans the plate column, and the get...(row) accessors
+ * read single values. Nothing is copied onto the heap except the values
+ * asked for, so a tool can look up vehicles in a saved registry of
+ * millions in a few milliseconds.
+ *
+ * File layout (big-endian):
+ *   int magic "VRC1", int rows, int makeCount, int modelCount
+ *   make dictionary, model dictionary   (unsigned short length + UTF-8)
+ *   VIN column                          (17 ASCII bytes per row)
+ *   plate column                        (8 ASCII bytes per row, zero padded)
+ *   year, mileage, make code, model code columns (int per row)
+ *
+ * Rows are sorted by upper-cased VIN, so a VIN can be found by binary search.
+ * -----------------------------------------------------------------------------
+ */
+public class ColumnarSnapshot implements Closeable {
+
+    /** File header identifying a columnar snapshot ("VRC1") */
+    public static final int MAGIC = 0x56524331;
+
+    /** Width of the VIN column; every VIN is exactly 17 characters */
+    public static final int VIN_WIDTH = 17;
+
+    /** Width of the plate column; GP plates are at most 8 characters */
+    public static final int PLATE_WIDTH = 8;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer data;
+    private final int rows;
+    private final String[] makes;
+    private final String[] models;
+
+    // Absolute offsets of each column inside the mapped file
+    private final int vinOffset;
+    private final int plateOffset;
+    private final int yearOffset;
+    private final int mileageOffset;
+    private final int makeOffset;
+    private final int modelOffset;
+
+    private ColumnarSnapshot(FileChannel channel) throws IOException {
+        this.channel = channel;
+        if (channel.size() > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot too large to map: " + channel.size() + " bytes");
+        }
+        data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (data.limit() < 16 || data.getInt(0) != MAGIC) {
+            throw new IOException("Not a columnar vehicle snapshot");
+        }
+        rows = data.getInt(4);
+        makes = new String[data.getInt(8)];
+        models = new String[data.getInt(12)];
+
+        data.position(16);
+        for (int i = 0; i < makes.length; i++) {
+            makes[i] = readString(data);
+        }
+        for (int i = 0; i < models.length; i++) {
+            models[i] = readString(data);
+        }
+
+        vinOffset = data.position();
+        plateOffset = vinOffset + rows * VIN_WIDTH;
+        yearOffset = align(plateOffset + rows * PLATE_WIDTH);
+        mileageOffset = yearOffset + rows * 4;
+        makeOffset = mileageOffset + rows * 4;
+        modelOffset = makeOffset + rows * 4;
+        if (modelOffset + rows * 4 > data.limit()) {
+            throw new IOException("Truncated columnar vehicle snapshot");
+        }
+    }
+
+    /**
+     * Memory-maps an existing snapshot file for reading.
+     *
+     * @param file snapshot written by {@link #write(Path, CarStore)}
+     * @throws IOException if the file is missing or not a valid snapshot
+     */
+    public static ColumnarSnapshot open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new ColumnarSnapshot(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks whether the file starts with the columnar snapshot header.
+     */
+    public static boolean isColumnar(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        channel.read(header, 0);
+        return header.position() == 4 && header.getInt(0) == MAGIC;
+    }
+
+    // =======================
+    // Column access
+    // =======================
+
+    /** Returns the number of vehicles in the snapshot. */
+    public int size() {
+        return rows;
+    }
+
+    public String getVin(int row) {
+        return ascii(vinOffset + row * VIN_WIDTH, VIN_WIDTH);
+    }
+
+    public String getPlateNumber(int row) {
+        return ascii(plateOffset + row * PLATE_WIDTH, PLATE_WIDTH);
+    }
+
+    public int getYear(int row) {
+        return year(row);
+    }
+
+    public int getMileage(int row) {
+        return mileage(row);
+    }
+
+    public String getMake(int row) {
+        return makes[makeCode(row)];
+    }
+
+    public String getModel(int row) {
+        return models[modelCode(row)];
+    }
+
+    /**
+     * Builds a Car object for one row.
+     */
+    public Car getCar(int row) {
+        return read(row, new Car());
+    }
+
+    /**
+     * Visits every row in VIN order without building a list. The same Car
+     * instance is reused for each call, as in RegistrySnapshot.forEachCar().
+     */
+    public void forEachCar(Consumer<Car> action) {
+        Car view = new Car();
+        for (int row = 0; row < rows; row++) {
+            action.accept(read(row, view));
+        }
+    }
+
+    // =======================
+    // In-place lookups
+    // =======================
+
+    /**
+     * Finds the row holding a VIN by binary search over the mapped column.
+     *
+     * @param vin VIN to look up (case-insensitive)
+     * @return row number, or -1 if the VIN is not in the snapshot
+     */
+    public int indexOfVin(String vin) {
+        if (vin == null || vin.length() != VIN_WIDTH) {
+            return -1;
+        }
+        int low = 0;
+        int high = rows - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareVin(mid, vin);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the row holding a plate. Plates are not sorted, so this
+     * compares the mapped plate column row by row (without creating
+     * Strings).
+     *
+     * @param plate plate number to look up (case-insensitive)
+     * @return row number, or -1 if the plate is not in the snapshot
+     */
+    public int indexOfPlate(String plate) {
+        if (plate == null || plate.isEmpty() || plate.length() > PLATE_WIDTH) {
+            return -1;
+        }
+        for (int row = 0; row < rows; row++) {
+            if (plateEquals(row, plate)) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    /** Copies a row's VIN (VIN_WIDTH bytes, as written) into the array. */
+    void copyVin(int row, byte[] target, int offset) {
+        data.get(vinOffset + row * VIN_WIDTH, target, offset, VIN_WIDTH);
+    }
+
+    /** Copies a row's plate (PLATE_WIDTH bytes, zero padded) into the array. */
+    void copyPlate(int row, byte[] target, int offset) {
+        data.get(plateOffset + row * PLATE_WIDTH, target, offset, PLATE_WIDTH);
+    }
+
+    int year(int row) {
+        return data.getInt(yearOffset + row * 4);
+    }
+
+    int mileage(int row) {
+        return data.getInt(mileageOffset + row * 4);
+    }
+
+    /** Returns a row's code in this file's make dictionary. */
+    int makeCode(int row) {
+        return data.getInt(makeOffset + row * 4);
+    }
+
+    /** Returns a row's code in this file's model dictionary. */
+    int modelCode(int row) {
+        return data.getInt(modelOffset + row * 4);
+    }
+
+    /** Returns the number of makes in the file's dictionary. */
+    int makeCount() {
+        return makes.length;
+    }
+
+    /** Returns the number of models in the file's dictionary. */
+    int modelCount() {
+        return models.length;
+    }
+
+    String make(int code) {
+        return makes[code];
+    }
+
+    String model(int code) {
+        return models[code];
+    }
+
+    /**
+     * Releases the file. The mapping itself is freed by the garbage collector.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // =======================
+    // Writing
+    // =======================
+
+    /**
+     * Writes the live vehicles of a store as a columnar snapshot file,
+     * copying its columns and dictionaries without creating a Car or String
+     * per vehicle. Pass a frozen copy (CarStore.snapshot()) to write while
+     * the registry keeps changing.
+     *
+     * @param file  destination, replaced if it exists
+     * @param store vehicles to store
+     * @throws IOException if the write fails
+     */
+    static void write(Path file, CarStore store) throws IOException {
+        int[] sorted = new int[store.size()];
+        int rows = 0;
+        for (int slot = 0; slot < store.slotCount(); slot++) {
+            if (store.isLive(slot)) {
+                sorted[rows++] = slot;
+            }
+        }
+        CarStore.sortSlots(sorted, rows, store::compareVins);
+
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocate(1 << 20);
+            buf.putInt(MAGIC).putInt(rows).putInt(store.makeCount()).putInt(store.modelCount());
+            for (int code = 0; code < store.makeCount(); code++) {
+                putString(out, buf, store.decodeMake(code));
+            }
+            for (int code = 0; code < store.modelCount(); code++) {
+                putString(out, buf, store.decodeModel(code));
+            }
+
+            for (int i = 0; i < rows; i++) {
+                ensure(out, buf, VIN_WIDTH);
+                store.copyVin(sorted[i], buf);
+            }
+            for (int i = 0; i < rows; i++) {
+                ensure(out, buf, PLATE_WIDTH);
+                int end = buf.position() + PLATE_WIDTH;
+                store.copyPlate(sorted[i], buf);
+                while (buf.position() < end) {
+                    buf.put((byte) 0);
+                }
+            }
+
+            // Pad so the int columns start on a 4-byte boundary
+            flushTo(out, buf);
+            long position = out.position();
+            buf.put(new byte[(int) (align(position) - position)]);
+
+            for (int i = 0; i < rows; i++) {
+                ensure(out, buf, 4);
+                buf.putInt(store.year(sorted[i]));
+            }
+            for (int i = 0; i < rows; i++) {
+                ensure(out, buf, 4);
+                buf.putInt(store.mileage(sorted[i]));
+            }
+            for (int i = 0; i < rows; i++) {
+                ensure(out, buf, 4);
+                buf.putInt(store.makeCode(sorted[i]));
+            }
+            for (int i = 0; i < rows; i++) {
+                ensure(out, buf, 4);
+                buf.putInt(store.modelCode(sorted[i]));
+            }
+            flushTo(out, buf);
+            out.force(true);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Cannot write snapshot: " + e.getMessage(), e);
+        }
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    private Car read(int row, Car car) {
+        car.setMake(getMake(row));
+        car.setModel(getModel(row));
+        car.setVin(getVin(row));
+        car.setPlateNumber(getPlateNumber(row));
+        car.setYear(year(row));
+        car.setMileage(mileage(row));
+        return car;
+    }
+
+    private int compareVin(int row, String vin) {
+        int base = vinOffset + row * VIN_WIDTH;
+        for (int i = 0; i < VIN_WIDTH; i++) {
+            int a = upper(data.get(base + i));
+            int b = upper(vin.charAt(i));
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return 0;
+    }
+
+    private boolean plateEquals(int row, String plate) {
+        int base = plateOffset + row * PLATE_WIDTH;
+        for (int i = 0; i < PLATE_WIDTH; i++) {
+            int stored = data.get(base + i);
+            int wanted = i < plate.length() ? upper(plate.charAt(i)) : 0;
+            if (upper(stored) != wanted) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String ascii(int offset, int width) {
+        byte[] bytes = new byte[width];
+        int length = 0;
+        while (length < width && data.get(offset + length) != 0) {
+            bytes[length] = data.get(offset + length);
+            length++;
+        }
+        return new String(bytes, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    private static int upper(int c) {
+        return (c >= 'a' && c <= 'z') ? c - ('a' - 'A') : c;
+    }
+
+    private static int align(long offset) {
+        return (int) ((offset + 3) & ~3L);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[Short.toUnsignedInt(in.getShort())];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putString(FileChannel out, ByteBuffer buf, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("make/model too long: " + value.length() + " chars");
+        }
+        ensure(out, buf, 2 + bytes.length);
+        buf.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static void ensure(FileChannel out, ByteBuffer buf, int bytes) throws IOException {
+        if (buf.remaining() < bytes) {
+            flushTo(out, buf);
+        }
+    }
+
+    private static void flushTo(FileChannel out, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            out.write(buf);
+        }
+        buf.clear();
+    }
+}
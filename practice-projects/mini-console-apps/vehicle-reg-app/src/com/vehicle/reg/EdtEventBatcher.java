@@ -0,0 +1,189 @@
+package com.vehicle.reg;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * -----------------------------------------------------------------------------
+ * EdtEventBatcher.java
+ *
+ * Passes registry changes on to a listener on the Swing event thread, in
+ * batches. Events from any number of operations are collected for up to
+ * DELAY ms and then delivered together, so a stream of registrations from
+ * another thread (the HTTP server, an import) updates an open window a few
+ * times a second instead of once per vehicle.
+ *
+ * Each batch is coalesced per VIN: a vehicle added and deleted within the
+ * batch disappears, one deleted and added again becomes a single UPDATED
+ * event. If more than MAX_PENDING events pile up, they are dropped and the
+ * listener's registryReset() is called instead.
+ *
+ * A view that registers before loading its data can create the batcher
+ * held: it then delivers nothing until startAfter() is given the version
+ * of the loaded data, and drops every event that data already includes.
+ *
+ *   EdtEventBatcher batcher = new EdtEventBatcher(myView);
+ *   manager.addListener(batcher);
+ *   ...
+ *   manager.removeListener(batcher);
+ * -----------------------------------------------------------------------------
+ */
+public class EdtEventBatcher implements RegistryListener {
+
+    /** Longest time events wait before being delivered (ms) */
+    public static final int DELAY = 100;
+
+    /** Most events held for one batch before falling back to a reset */
+    public static final int MAX_PENDING = 10_000;
+
+    private final RegistryListener target;
+    private final Timer timer;
+
+    // Guarded by this
+    private List<RegistryEvent> pending = new ArrayList<>();
+    private boolean overflowed;
+    private boolean scheduled;
+    private boolean held;
+    private long after = Long.MIN_VALUE;
+
+    /**
+     * @param target listener to call on the event thread
+     */
+    public EdtEventBatcher(RegistryListener target) {
+        this(target, false);
+    }
+
+    /**
+     * @param target listener to call on the event thread
+     * @param held   true to deliver nothing until startAfter() is called
+     */
+    public EdtEventBatcher(RegistryListener target, boolean held) {
+        this.target = target;
+        this.held = held;
+        this.timer = new Timer(DELAY, e -> deliver());
+        this.timer.setRepeats(false);
+    }
+
+    /**
+     * Starts delivering events, skipping those with a version up to the
+     * given one (already included in the data the view loaded). Call on
+     * the event thread.
+     */
+    public void startAfter(long version) {
+        synchronized (this) {
+            held = false;
+            after = version;
+        }
+        timer.restart();
+    }
+
+    @Override
+    public void registryChanged(List<RegistryEvent> events) {
+        synchronized (this) {
+            if (!overflowed) {
+                if (pending.size() + events.size() > MAX_PENDING) {
+                    overflowed = true;
+                    pending = new ArrayList<>();
+                } else {
+                    pending.addAll(events);
+                }
+            }
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        SwingUtilities.invokeLater(timer::restart);
+    }
+
+    @Override
+    public void registryReset() {
+        synchronized (this) {
+            overflowed = true;
+            pending = new ArrayList<>();
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        SwingUtilities.invokeLater(timer::restart);
+    }
+
+    /**
+     * Merges the changes to each VIN into at most one event, keeping the
+     * order in which the VINs first changed.
+     */
+    public static List<RegistryEvent> coalesce(List<RegistryEvent> events) {
+        // VIN -> net change over the batch
+        Map<String, NetChange> net = new LinkedHashMap<>();
+        for (RegistryEvent event : events) {
+            NetChange change = net.get(event.getVin());
+            if (change == null) {
+                change = new NetChange();
+                change.before = event.getType() == RegistryEvent.Type.ADDED ? null
+                        : event.getType() == RegistryEvent.Type.DELETED ? event.getCar() : event.getPrevious();
+                net.put(event.getVin(), change);
+            }
+            change.after = event.getType() == RegistryEvent.Type.DELETED ? null : event.getCar();
+            change.version = event.getVersion();
+        }
+
+        List<RegistryEvent> result = new ArrayList<>(net.size());
+        for (NetChange change : net.values()) {
+            if (change.before == null && change.after != null) {
+                result.add(RegistryEvent.added(change.after, change.version));
+            } else if (change.before != null && change.after == null) {
+                result.add(RegistryEvent.deleted(change.before, change.version));
+            } else if (change.before != null) {
+                result.add(new RegistryEvent(RegistryEvent.Type.UPDATED, change.after, change.before, change.version));
+            }
+        }
+        return result;
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    /**
+     * Hands the collected events to the target. Runs on the event thread.
+     */
+    private void deliver() {
+        List<RegistryEvent> events;
+        boolean reset;
+        long skip;
+        synchronized (this) {
+            if (held) {
+                scheduled = false; // startAfter() delivers what is pending
+                return;
+            }
+            skip = after;
+            events = pending;
+            reset = overflowed;
+            pending = new ArrayList<>();
+            overflowed = false;
+            scheduled = false;
+        }
+        if (reset) {
+            target.registryReset();
+            return;
+        }
+        events.removeIf(event -> event.getVersion() <= skip);
+        List<RegistryEvent> batch = coalesce(events);
+        if (!batch.isEmpty()) {
+            target.registryChanged(Collections.unmodifiableList(batch));
+        }
+    }
+
+    /**
+     * Vehicle before and after a batch (null where absent) and the version
+     * of its last change.
+     */
+    private static final class NetChange {
+        Car before;
+        Car after;
+        long version;
+    }
+}
@@ -3,24 +3,69 @@ package com.vehicle.reg;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * -----------------------------------------------------------------------------
  * ExtendedFeatures.java
  * Purpose: Provides additional features to the Vehicle Reg app
  * Author: Ndzalama Tihuhlu
+ *
+ * The report is built on AsyncRegistry's worker threads, so a large
+ * fleet does not freeze the window while it is calculated.
+ *
+ * While the dialog is open it listens for registry changes and adjusts the
+ * totals and the counts by year, make and model as vehicles are added or
+ * deleted, so it stays current without recalculating the whole report.
+ *
+ * Nothing here reads the registry on the event thread: the running totals
+ * and metrics shown with each update are fetched through AsyncRegistry too
+ * (they take the registry's read lock, which a writer may hold while the
+ * journal syncs to disk), and the text is redrawn once they arrive.
  * -----------------------------------------------------------------------------
  */
 public class ExtendedFeatures extends JDialog {
 
-    private final VehicleManager manager;
+    // Report grouping: years per bucket, entries per top list
+    private static final int YEAR_BUCKET = 5;
+    private static final int TOP_N = 5;
+
+    private final AsyncRegistry registry;
     private JTextArea statsArea;
+    private JButton refreshBtn;
+
+    // Last full report, and its counts kept up to date from change events
+    private FleetAnalytics.FleetReport report;
+    private Map<Integer, Integer> yearCounts;
+    private Map<String, Integer> makeCounts;
+    private Map<String, Integer> modelCounts;
+    private boolean changedSinceReport;
+
+    // Set while totals are being fetched for the text; renderAgain if more
+    // changes arrived meanwhile, scrollToTop after a fresh report
+    private boolean rendering;
+    private boolean renderAgain;
+    private boolean scrollToTop;
+
+    // Delivers the changes made since the current report was taken; added
+    // before the report is calculated and held until it is known
+    private EdtEventBatcher following;
+
+    // Set once the dialog is closed; a report not yet started is skipped
+    private volatile boolean closed;
 
-    public ExtendedFeatures(JFrame parent, VehicleManager manager) {
+    public ExtendedFeatures(JFrame parent, AsyncRegistry registry) {
         super(parent, "Vehicle Insights & Stats", true);
-        this.manager = manager;
+        this.registry = registry;
 
-        setSize(500, 400);
+        setSize(550, 550);
         setLocationRelativeTo(parent);
         setLayout(new BorderLayout());
 
@@ -38,7 +83,7 @@ public class ExtendedFeatures extends JDialog {
 
         // Button panel
         JPanel bottom = new JPanel();
-        JButton refreshBtn = new JButton("Refresh Stats");
+        refreshBtn = new JButton("Refresh Stats");
         JButton closeBtn = new JButton("Close");
         bottom.add(refreshBtn);
         bottom.add(closeBtn);
@@ -50,36 +95,208 @@ public class ExtendedFeatures extends JDialog {
         // Close button
         closeBtn.addActionListener(e -> dispose());
 
+        // Stop following changes once closed
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                closed = true;
+                if (following != null) {
+                    registry.getManager().removeListener(following);
+                    following = null;
+                }
+            }
+        });
+
         // Load initial data
         showStats();
     }
 
     /**
-     * Generates and displays vehicle statistics
+     * Recalculates the full report in the background and follows registry
+     * changes from the moment it was taken. The listener is added here on
+     * the EDT before the work is submitted, so closing the dialog always
+     * removes it; it holds the changes until the report's version is known
+     * and then skips those the report already includes.
      */
     private void showStats() {
-        StringBuilder sb = new StringBuilder();
+        if (closed) {
+            return;
+        }
+        refreshBtn.setEnabled(false);
+        statsArea.setText("Calculating...");
+        VehicleManager manager = registry.getManager();
+        if (following != null) {
+            manager.removeListener(following);
+        }
+        report = null;
+        EdtEventBatcher[] changes = new EdtEventBatcher[1];
+        changes[0] = new EdtEventBatcher(new RegistryListener() {
+            @Override
+            public void registryChanged(List<RegistryEvent> events) {
+                if (following == changes[0]) {
+                    applyChanges(events);
+                }
+            }
+
+            @Override
+            public void registryReset() {
+                if (following == changes[0]) {
+                    showStats();
+                }
+            }
+        }, true);
+        following = changes[0];
+        manager.addListener(changes[0]);
+
+        CompletableFuture<FleetAnalytics.FleetReport> task = registry.submit(() -> {
+            if (closed) {
+                throw new CancellationException("Statistics dialog closed");
+            }
+            return new FleetAnalytics(manager).analyze(YEAR_BUCKET, TOP_N);
+        });
+        task.whenComplete((report, error) -> SwingUtilities.invokeLater(() -> {
+            refreshBtn.setEnabled(true);
+            if (error != null && following == changes[0]) {
+                manager.removeListener(changes[0]); // no report to keep current
+                following = null;
+            }
+        }));
+        ProgressDialog.watch(this, "Calculating statistics...", task, null, report -> {
+            if (following != changes[0]) {
+                return; // refreshed again meanwhile
+            }
+            this.report = report;
+            yearCounts = new TreeMap<>(report.getYearBuckets());
+            makeCounts = new HashMap<>(report.getMakes());
+            modelCounts = new HashMap<>(report.getModels());
+            changedSinceReport = false;
+            scrollToTop = true;
+            render();
+            changes[0].startAfter(report.getVersion());
+        });
+    }
+
+    /**
+     * Adjusts the counts by the vehicles added and deleted since the last
+     * report, without re-reading the fleet. Runs on the EDT.
+     */
+    private void applyChanges(List<RegistryEvent> events) {
+        for (RegistryEvent event : events) {
+            if (event.getType() == RegistryEvent.Type.DELETED) {
+                count(event.getCar(), -1);
+            } else {
+                if (event.getType() == RegistryEvent.Type.UPDATED) {
+                    count(event.getPrevious(), -1);
+                }
+                count(event.getCar(), 1);
+            }
+        }
+        changedSinceReport = true;
+        render();
+    }
+
+    private void count(Car car, int delta) {
+        yearCounts.merge(Math.floorDiv(car.getYear(), YEAR_BUCKET) * YEAR_BUCKET, delta, ExtendedFeatures::sum);
+        makeCounts.merge(car.getMake(), delta, ExtendedFeatures::sum);
+        modelCounts.merge(car.getModel(), delta, ExtendedFeatures::sum);
+    }
 
-        int total = manager.getAllCars().size();
-        int mileageSum = 0;
-        int oldestYear = Integer.MAX_VALUE;
-        int newestYear = Integer.MIN_VALUE;
+    /** Adds two counts; null (removing the entry) once nothing is left. */
+    private static Integer sum(Integer a, Integer b) {
+        int total = a + b;
+        return total > 0 ? total : null;
+    }
 
-        for (Car c : manager.getAllCars()) {
-            mileageSum += c.getMileage();
-            oldestYear = Math.min(oldestYear, c.getYear());
-            newestYear = Math.max(newestYear, c.getYear());
+    /**
+     * Shows the current totals and counts. Totals are maintained by the
+     * manager, so no need to scan the vehicles; they and the metrics are
+     * fetched on a worker and shown when both have arrived. Updates that
+     * come in meanwhile are drawn together once the fetch is done.
+     */
+    private void render() {
+        if (rendering) {
+            renderAgain = true;
+            return;
         }
+        rendering = true;
+        CompletableFuture<FleetStats> stats = registry.getStats();
+        CompletableFuture<String> metrics = registry.getMetricsReport();
+        CompletableFuture.allOf(stats, metrics).whenComplete((done, error) -> SwingUtilities.invokeLater(() -> {
+            rendering = false;
+            if (!isDisplayable() || report == null) {
+                return; // closed, or a new report is being calculated
+            }
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                statsArea.setText("Could not read statistics: " + cause.getMessage());
+            } else {
+                show(stats.join(), metrics.join());
+            }
+            if (renderAgain) {
+                renderAgain = false;
+                render();
+            }
+        }));
+    }
+
+    /**
+     * Fills the text area, keeping the scroll position unless a fresh
+     * report has just arrived. Runs on the EDT.
+     */
+    private void show(FleetStats stats, String metrics) {
+        StringBuilder sb = new StringBuilder();
+        int total = stats.getTotal();
 
         sb.append("Total Registered Vehicles: ").append(total).append("\n");
-        sb.append("Combined Mileage: ").append(mileageSum).append(" km\n");
+        sb.append("Combined Mileage: ").append(stats.getMileageSum()).append(" km\n");
 
         if (total > 0) {
-            sb.append("Average Mileage: ").append(mileageSum / total).append(" km\n");
-            sb.append("Oldest Vehicle Year: ").append(oldestYear).append("\n");
-            sb.append("Newest Vehicle Year: ").append(newestYear).append("\n");
+            sb.append("Average Mileage: ").append(stats.getAverageMileage()).append(" km\n");
+            sb.append("Oldest Vehicle Year: ").append(stats.getOldestYear()).append("\n");
+            sb.append("Newest Vehicle Year: ").append(stats.getNewestYear()).append("\n");
+            appendAnalytics(sb);
         }
 
+        sb.append("\n-- Registry Metrics --\n");
+        sb.append(metrics);
+        int caret = scrollToTop ? 0 : statsArea.getCaretPosition();
+        scrollToTop = false;
         statsArea.setText(sb.toString());
+        statsArea.setCaretPosition(Math.min(caret, statsArea.getDocument().getLength()));
+    }
+
+    /**
+     * Adds the fleet analytics report (percentiles, groupings, top mileage).
+     * Percentiles and top mileage need a full pass, so after changes they
+     * are marked as dating from the last refresh.
+     */
+    private void appendAnalytics(StringBuilder sb) {
+        String asOf = changedSinceReport ? " (as of last refresh)" : "";
+        sb.append("\n-- Mileage Percentiles").append(asOf).append(" --\n");
+        report.getMileagePercentiles().forEach((p, km) ->
+                sb.append(String.format("  P%-3d %,12d km%n", p, km)));
+
+        sb.append("\n-- Vehicles by Year --\n");
+        yearCounts.forEach((from, count) ->
+                sb.append(String.format("  %d-%d %,10d%n", from, from + YEAR_BUCKET - 1, count)));
+
+        sb.append("\n-- Top Makes --\n");
+        appendTop(sb, makeCounts);
+
+        sb.append("\n-- Top Models --\n");
+        appendTop(sb, modelCounts);
+
+        sb.append("\n-- Highest Mileage").append(asOf).append(" --\n");
+        for (Car c : report.getTopMileage()) {
+            sb.append(String.format("  %s %-8s %,10d km%n", c.getVin(), c.getPlateNumber(), c.getMileage()));
+        }
+    }
+
+    private static void appendTop(StringBuilder sb, Map<String, Integer> counts) {
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(TOP_N)
+                .forEach(e -> sb.append(String.format("  %-20s %,10d%n", e.getKey(), e.getValue())));
     }
 }
@@ -0,0 +1,196 @@
+package com.vehicle.reg;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IntSummaryStatistics;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * -----------------------------------------------------------------------------
+ * FleetAnalytics.java
+ *
+ * Fleet-wide reports computed from the store's primitive columns:
+ * mileage percentiles, vehicles per year bucket, vehicles per make and
+ * per model, and the highest-mileage vehicles.
+ *
+ * The work runs on the common fork-join pool (parallel streams and
+ * Arrays.parallelSort) over a RegistrySnapshot, so the report is consistent
+ * and registrations carry on while it is calculated.
+ * -----------------------------------------------------------------------------
+ */
+public class FleetAnalytics {
+
+    /** Percentiles included in every report */
+    public static final int[] PERCENTILES = {50, 75, 90, 95, 99};
+
+    private final VehicleManager manager;
+
+    public FleetAnalytics(VehicleManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * Builds a report over every registered vehicle.
+     *
+     * @param yearBucketSize number of years grouped together (e.g. 5)
+     * @param topN           number of highest-mileage vehicles to include
+     */
+    public FleetReport analyze(int yearBucketSize, int topN) {
+        if (yearBucketSize < 1 || topN < 0) {
+            throw new IllegalArgumentException("yearBucketSize must be >= 1 and topN >= 0");
+        }
+        try (RegistrySnapshot snapshot = manager.snapshot()) {
+            return analyze(snapshot.store(), snapshot.getVersion(), yearBucketSize, topN);
+        }
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    private static FleetReport analyze(CarStore store, long version, int yearBucketSize, int topN) {
+        FleetReport report = new FleetReport(yearBucketSize, version);
+        int n = store.size();
+        if (n == 0) {
+            return report;
+        }
+
+        // Dense list of live slots, so the parallel passes below need no checks
+        int[] slots = new int[n];
+        for (int slot = 0, i = 0; slot < store.slotCount(); slot++) {
+            if (store.isLive(slot)) {
+                slots[i++] = slot;
+            }
+        }
+
+        // Sort (mileage, position) pairs once: gives percentiles and top-N
+        long[] byMileage = new long[n];
+        IntStream.range(0, n).parallel()
+                .forEach(i -> byMileage[i] = ((long) store.mileage(slots[i]) << 32) | i);
+        Arrays.parallelSort(byMileage);
+        for (int p : PERCENTILES) {
+            int rank = Math.max(0, (int) Math.ceil(p / 100.0 * n) - 1);
+            report.mileagePercentiles.put(p, (int) (byMileage[rank] >> 32));
+        }
+        for (int i = n - 1; i >= Math.max(0, n - topN); i--) {
+            report.topMileage.add(store.get(slots[(int) byMileage[i]]));
+        }
+
+        // Vehicles per year bucket; years outside the validator's range
+        // (only possible in data saved before it was enforced) are counted
+        // in the first or last bucket
+        IntSummaryStatistics years = IntStream.range(0, n).parallel()
+                .map(i -> clampYear(store.year(slots[i]))).summaryStatistics();
+        int firstBucket = Math.floorDiv(years.getMin(), yearBucketSize);
+        int buckets = Math.floorDiv(years.getMax(), yearBucketSize) - firstBucket + 1;
+        int[] perBucket = countBy(n, buckets,
+                i -> Math.floorDiv(clampYear(store.year(slots[i])), yearBucketSize) - firstBucket);
+        for (int b = 0; b < perBucket.length; b++) {
+            if (perBucket[b] > 0) {
+                report.yearBuckets.put((firstBucket + b) * yearBucketSize, perBucket[b]);
+            }
+        }
+
+        // Vehicles per make and per model, counted on dictionary codes
+        int[] perMake = countBy(n, store.makeCount(), i -> store.makeCode(slots[i]));
+        int[] perModel = countBy(n, store.modelCount(), i -> store.modelCode(slots[i]));
+        fillRanked(report.makes, perMake, store::decodeMake);
+        fillRanked(report.models, perModel, store::decodeModel);
+        return report;
+    }
+
+    private static int clampYear(int year) {
+        return Math.max(VehicleValidator.MIN_YEAR, Math.min(year, VehicleValidator.maxYear()));
+    }
+
+    /**
+     * Counts positions 0..n-1 by a key in 0..keys-1, in parallel.
+     * Each worker fills its own histogram and the histograms are summed.
+     */
+    private static int[] countBy(int n, int keys, IntUnaryOperator key) {
+        return IntStream.range(0, n).parallel().collect(
+                () -> new int[keys],
+                (counts, i) -> counts[key.applyAsInt(i)]++,
+                (a, b) -> {
+                    for (int k = 0; k < keys; k++) {
+                        a[k] += b[k];
+                    }
+                });
+    }
+
+    private static void fillRanked(Map<String, Integer> target, int[] counts, IntFunction<String> decode) {
+        List<Integer> codes = new ArrayList<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                codes.add(code);
+            }
+        }
+        codes.sort((a, b) -> Integer.compare(counts[b], counts[a]));
+        for (int code : codes) {
+            target.put(decode.apply(code), counts[code]);
+        }
+    }
+
+    // =======================
+    // Report
+    // =======================
+
+    /**
+     * Result of {@link #analyze(int, int)}.
+     */
+    public static class FleetReport {
+
+        private final int yearBucketSize;
+        private final Map<Integer, Integer> mileagePercentiles = new LinkedHashMap<>();
+        private final Map<Integer, Integer> yearBuckets = new TreeMap<>();
+        private final Map<String, Integer> makes = new LinkedHashMap<>();
+        private final Map<String, Integer> models = new LinkedHashMap<>();
+        private final List<Car> topMileage = new ArrayList<>();
+        private final long version;
+
+        private FleetReport(int yearBucketSize, long version) {
+            this.yearBucketSize = yearBucketSize;
+            this.version = version;
+        }
+
+        /** Returns the registry version the report was calculated at. */
+        public long getVersion() {
+            return version;
+        }
+
+        /** Returns the number of years in each year bucket. */
+        public int getYearBucketSize() {
+            return yearBucketSize;
+        }
+
+        /** Returns percentile (e.g. 90) -> mileage in km; empty for an empty fleet. */
+        public Map<Integer, Integer> getMileagePercentiles() {
+            return Collections.unmodifiableMap(mileagePercentiles);
+        }
+
+        /** Returns first year of each bucket -> vehicle count, oldest first. */
+        public Map<Integer, Integer> getYearBuckets() {
+            return Collections.unmodifiableMap(yearBuckets);
+        }
+
+        /** Returns make -> vehicle count, most common first. */
+        public Map<String, Integer> getMakes() {
+            return Collections.unmodifiableMap(makes);
+        }
+
+        /** Returns model -> vehicle count, most common first. */
+        public Map<String, Integer> getModels() {
+            return Collections.unmodifiableMap(models);
+        }
+
+        /** Returns the highest-mileage vehicles, highest first. */
+        public List<Car> getTopMileage() {
+            return Collections.unmodifiableList(topMileage);
+        }
+    }
+}
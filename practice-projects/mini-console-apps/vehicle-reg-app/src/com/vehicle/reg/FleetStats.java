@@ -0,0 +1,50 @@
+package com.vehicle.reg;
+
+/**
+ * -----------------------------------------------------------------------------
+ * FleetStats.java
+ *
+ * Read-only summary of the registry at one moment: vehicle count, combined
+ * and average mileage, and oldest/newest manufacture year.
+ * Obtained from VehicleManager.getStats() without scanning the vehicles.
+ * -----------------------------------------------------------------------------
+ */
+public class FleetStats {
+
+    private final int total;
+    private final long mileageSum;
+    private final int oldestYear;
+    private final int newestYear;
+
+    FleetStats(int total, long mileageSum, int oldestYear, int newestYear) {
+        this.total = total;
+        this.mileageSum = mileageSum;
+        this.oldestYear = oldestYear;
+        this.newestYear = newestYear;
+    }
+
+    /** Returns the number of registered vehicles. */
+    public int getTotal() {
+        return total;
+    }
+
+    /** Returns the mileage of all vehicles added together, in km. */
+    public long getMileageSum() {
+        return mileageSum;
+    }
+
+    /** Returns the average mileage in km, or 0 when there are no vehicles. */
+    public long getAverageMileage() {
+        return total == 0 ? 0 : mileageSum / total;
+    }
+
+    /** Returns the earliest manufacture year; only meaningful if total > 0. */
+    public int getOldestYear() {
+        return oldestYear;
+    }
+
+    /** Returns the latest manufacture year; only meaningful if total > 0. */
+    public int getNewestYear() {
+        return newestYear;
+    }
+}
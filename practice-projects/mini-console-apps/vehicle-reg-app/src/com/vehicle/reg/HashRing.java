@@ -0,0 +1,77 @@
+package com.vehicle.reg;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * -----------------------------------------------------------------------------
+ * HashRing.java
+ *
+ * Consistent-hash ring mapping keys (VINs and plates) to shard numbers.
+ * Each shard is placed on the ring at VIRTUAL_NODES points and a key
+ * belongs to the first point at or after its own hash, so keys spread
+ * evenly and growing from N to N+1 shards moves only about 1/(N+1) of
+ * them.
+ *
+ * Points are derived from the shard's number, not its address, so a
+ * shard can move to another host or port without any keys moving. Keys
+ * are trimmed and upper-cased before hashing, matching how the registry
+ * stores them.
+ * -----------------------------------------------------------------------------
+ */
+class HashRing {
+
+    /** Points per shard; more points give a more even spread */
+    static final int VIRTUAL_NODES = 128;
+
+    // Ring position -> shard number
+    private final TreeMap<Long, Integer> points = new TreeMap<>();
+    private final int shards;
+
+    HashRing(int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("At least one shard is needed");
+        }
+        this.shards = shards;
+        for (int shard = 0; shard < shards; shard++) {
+            for (int v = 0; v < VIRTUAL_NODES; v++) {
+                points.put(hash("shard-" + shard + "#" + v), shard);
+            }
+        }
+    }
+
+    /** Returns the number of shards on the ring. */
+    int shards() {
+        return shards;
+    }
+
+    /**
+     * Returns the shard (0..shards-1) that owns the key.
+     */
+    int shardFor(String key) {
+        long h = hash(key.trim().toUpperCase(Locale.ROOT));
+        Map.Entry<Long, Integer> point = points.ceilingEntry(h);
+        return (point != null ? point : points.firstEntry()).getValue();
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, with a final avalanche step so
+     * keys that differ in one character land far apart on the ring.
+     */
+    private static long hash(String text) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+}
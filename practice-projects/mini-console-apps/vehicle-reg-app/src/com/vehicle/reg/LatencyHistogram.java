@@ -0,0 +1,133 @@
+package com.vehicle.reg;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * -----------------------------------------------------------------------------
+ * LatencyHistogram.java
+ *
+ * Records operation latencies in nanoseconds into fixed log-linear buckets
+ * (the HdrHistogram layout): values below 64 ns get a bucket each, and every
+ * power of two above that is split into 32 equal sub-buckets, so any
+ * reported value is within about 3% of the real one.
+ *
+ * Recording is one array increment plus a sum update, with no locking and
+ * no allocation, so it can sit on every registry call. Reads sum the
+ * buckets and may be slightly behind concurrent recordings.
+ * -----------------------------------------------------------------------------
+ */
+public class LatencyHistogram {
+
+    // Bits of precision kept below the leading one bit
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+    // Values below this are counted exactly
+    private static final int LINEAR_LIMIT = SUB_COUNT * 2;
+    private static final int LINEAR_EXPONENT = SUB_BITS + 1;
+
+    private static final int BUCKETS = LINEAR_LIMIT + (63 - LINEAR_EXPONENT) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one operation that started at the given System.nanoTime().
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Records one latency in nanoseconds (negative values count as 0).
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        total.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /** Returns the number of recorded operations. */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /** Returns the mean latency in nanoseconds, or 0 if nothing was recorded. */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) total.sum() / count;
+    }
+
+    /** Returns the highest recorded latency in nanoseconds. */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the latency (ns) that the given percentage of operations
+     * did not exceed, e.g. 99.9 for the 99.9th percentile.
+     * Returns 0 if nothing was recorded.
+     */
+    public long getPercentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * Math.min(100, Math.max(0, percentile)) / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestValueIn(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Returns a one-line summary in microseconds, e.g. for a text dump.
+     */
+    public String summary() {
+        return String.format("samples=%d mean=%.1f p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f (us)",
+                getCount(), getMean() / 1000, getPercentile(50) / 1000.0, getPercentile(90) / 1000.0,
+                getPercentile(99) / 1000.0, getPercentile(99.9) / 1000.0, getMax() / 1000.0);
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    private static int bucketOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return LINEAR_LIMIT + (exponent - LINEAR_EXPONENT) * SUB_COUNT + sub;
+    }
+
+    /** Returns the largest value that falls into the bucket. */
+    private static long highestValueIn(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int exponent = (bucket - LINEAR_LIMIT) / SUB_COUNT + LINEAR_EXPONENT;
+        long sub = (bucket - LINEAR_LIMIT) % SUB_COUNT;
+        long width = 1L << (exponent - SUB_BITS);
+        long low = (SUB_COUNT + sub) * width;
+        return low + width - 1;
+    }
+}
@@ -0,0 +1,178 @@
+package com.vehicle.reg;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * -----------------------------------------------------------------------------
+ * LocalShardCluster.java
+ *
+ * Runs a sharded registry on one machine: each shard is a separate JVM
+ * running VehicleHttpServer --shard on a free loopback port, with its own
+ * data directory (baseDir/shard-0, baseDir/shard-1, ...). Used to try out
+ * and test ShardedRegistry without several hosts:
+ *
+ *   try (LocalShardCluster cluster = LocalShardCluster.start(3, dir)) {
+ *       ShardedRegistry registry = cluster.registry();
+ *       registry.addCar(car);
+ *   }
+ *
+ * Or from the command line, until Enter is pressed:
+ *   java -cp out com.vehicle.reg.LocalShardCluster [shards] [baseDir]
+ * -----------------------------------------------------------------------------
+ */
+public class LocalShardCluster implements AutoCloseable {
+
+    // Line printed by VehicleHttpServer.main() once it is listening
+    private static final Pattern LISTENING = Pattern.compile("listening on (http://\\S+:\\d+)/");
+
+    private final Path baseDir;
+    private final List<Process> processes = new ArrayList<>();
+    private final List<URI> uris = new ArrayList<>();
+
+    private LocalShardCluster(Path baseDir) {
+        this.baseDir = baseDir;
+    }
+
+    /**
+     * Starts the shard JVMs and waits until each one is listening. Shards
+     * restore their vehicles and plate claims from earlier runs themselves.
+     *
+     * @throws IOException if a shard cannot be started; any shards already
+     *                     running are stopped again
+     */
+    public static LocalShardCluster start(int shards, Path baseDir) throws IOException {
+        if (shards < 1) {
+            throw new IllegalArgumentException("At least one shard is needed");
+        }
+        LocalShardCluster cluster = new LocalShardCluster(baseDir);
+        try {
+            for (int shard = 0; shard < shards; shard++) {
+                cluster.processes.add(null);
+                cluster.uris.add(null);
+                cluster.launch(shard);
+            }
+        } catch (IOException | RuntimeException e) {
+            cluster.close();
+            throw e;
+        }
+        return cluster;
+    }
+
+    /** Returns the shards' base URIs, in ring order. */
+    public synchronized List<URI> getShardUris() {
+        return List.copyOf(uris);
+    }
+
+    /**
+     * Returns a client for the cluster's current addresses. Take a new one
+     * after restartShard(), as the restarted shard gets a new port.
+     */
+    public ShardedRegistry registry() {
+        return new ShardedRegistry(getShardUris());
+    }
+
+    /**
+     * Stops one shard's JVM and starts it again on the same data (its
+     * vehicles and plate claims), e.g. to test recovery.
+     */
+    public void restartShard(int shard) throws IOException {
+        stop(shard);
+        launch(shard);
+    }
+
+    /**
+     * Stops every shard JVM (each closes its registry on the way out).
+     */
+    @Override
+    public synchronized void close() {
+        for (int shard = 0; shard < processes.size(); shard++) {
+            stop(shard);
+        }
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    private synchronized void launch(int shard) throws IOException {
+        Path dataDir = baseDir.resolve("shard-" + shard);
+        Files.createDirectories(dataDir);
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                VehicleHttpServer.class.getName(), "--shard", "0", dataDir.toString())
+                .redirectErrorStream(true)
+                .start();
+        processes.set(shard, process);
+
+        BufferedReader output = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        StringBuilder seen = new StringBuilder();
+        String line;
+        while ((line = output.readLine()) != null) {
+            Matcher m = LISTENING.matcher(line);
+            if (m.find()) {
+                uris.set(shard, URI.create(m.group(1)));
+                drain(output, shard);
+                return;
+            }
+            seen.append(line).append('\n');
+        }
+        throw new IOException("Shard " + shard + " exited during startup:\n" + seen);
+    }
+
+    /** Keeps reading the shard's output so it never blocks on a full pipe. */
+    private static void drain(BufferedReader output, int shard) {
+        Thread thread = new Thread(() -> {
+            try {
+                String line;
+                while ((line = output.readLine()) != null) {
+                    System.err.println("[shard-" + shard + "] " + line);
+                }
+            } catch (IOException e) {
+                // process ended
+            }
+        }, "shard-" + shard + "-output");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private synchronized void stop(int shard) {
+        Process process = processes.get(shard);
+        if (process == null) {
+            return;
+        }
+        process.destroy(); // runs the shard's shutdown hook
+        try {
+            process.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+        }
+        processes.set(shard, null);
+    }
+
+    // =======================
+    // Entry point
+    // =======================
+
+    public static void main(String[] args) throws IOException {
+        int shards = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        Path baseDir = Paths.get(args.length > 1 ? args[1] : "vehicle-shards");
+        try (LocalShardCluster cluster = start(shards, baseDir)) {
+            for (int shard = 0; shard < shards; shard++) {
+                System.out.println("shard-" + shard + ": " + cluster.getShardUris().get(shard));
+            }
+            System.out.println("Press Enter to stop the cluster.");
+            System.in.read();
+        }
+    }
+}
@@ -12,21 +12,39 @@
  * - Loops and flow control (while/do-while, switch)
  * - Input validation and error handling
  * - Java collections and list operations
- * - Regex pattern matching for format validation
+ * - Shared format validation (VehicleValidator)
+ *
+ * Run with --batch [file] to execute commands from a file (or stdin)
+ * without the menu; see BatchCommandRunner for the command format.
  * ---------------------------------------------------------------------
  */
 
 package com.vehicle.reg;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
 import java.util.Scanner;
-import java.util.regex.Pattern;
 
 public class Main {
 
+    // Vehicles shown per page when listing
+    private static final int PAGE_SIZE = 20;
+
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            System.exit(runBatch(args.length > 1 ? args[1] : "-"));
+        }
+
         Scanner input = new Scanner(System.in); // Input reader
-        ArrayList<Car> cars = new ArrayList<>(); // Vehicle storage
+        VehicleManager manager = openManager(); // Vehicle storage
+        manager.getMetrics().registerMBean(); // Counters for JConsole
         int menuOption;
 
         // App Title
@@ -59,17 +77,17 @@ public class Main {
                     // VIN
                     String vin;
                     while (true) {
-                        System.out.print("Enter 17-char VIN (e.g. A1B2C3D4E5F6G7H8I): ");
+                        System.out.print("Enter 17-char VIN (e.g. 1HGCM82633A004352): ");
                         vin = input.nextLine().trim().toUpperCase();
 
-                        if (vin.length() == 17 && vin.matches("[A-Z0-9]{17}")) {
-                            if (vinExists(cars, vin)) {
+                        if (VehicleValidator.isValidVin(vin)) {
+                            if (vinExists(manager, vin)) {
                                 System.out.println("A vehicle with this VIN already exists.");
                             } else {
                                 break;
                             }
                         } else {
-                            System.out.println("Invalid VIN format. Must be 17 letters/numbers.");
+                            System.out.println("Invalid VIN format. Must be 17 letters/numbers (no I, O or Q).");
                         }
                     }
                     car.setVin(vin);
@@ -85,16 +103,17 @@ public class Main {
                     } while (plateChoice != 1 && plateChoice != 2);
 
                     // Plate Number
-                    String platePattern = (plateChoice == 1)
-                            ? "[A-Z]{3}[0-9]{3}GP"
-                            : "[A-Z]{2}[0-9]{2}[A-Z]{2}GP";
                     String plate;
                     while (true) {
-                        System.out.print("Enter plate number (e.g. ABC123GP): ");
+                        System.out.print("Enter plate number (e.g. "
+                                + (plateChoice == 1 ? "ABC123GP" : "AB12CDGP") + "): ");
                         plate = input.nextLine().trim().toUpperCase();
 
-                        if (Pattern.matches(platePattern, plate)) {
-                            if (plateExists(cars, plate)) {
+                        boolean validFormat = (plateChoice == 1)
+                                ? VehicleValidator.isOldFormatPlate(plate)
+                                : VehicleValidator.isNewFormatPlate(plate);
+                        if (validFormat) {
+                            if (plateExists(manager, plate)) {
                                 System.out.println("A vehicle with this plate already exists.");
                             } else {
                                 break;
@@ -106,20 +125,24 @@ public class Main {
                     car.setPlateNumber(plate);
 
                     // Mileage
-                    System.out.print("Enter mileage (0–1,000,000): ");
-                    car.setMileage(getIntInput(input, 0, 1_000_000));
+                    System.out.printf("Enter mileage (0–%,d): ", VehicleValidator.MAX_MILEAGE);
+                    car.setMileage(getIntInput(input, 0, VehicleValidator.MAX_MILEAGE));
 
                     // Year
-                    System.out.print("Enter year of manufacture (1900–2025): ");
-                    car.setYear(getIntInput(input, 1900, 2025));
+                    int maxYear = VehicleValidator.maxYear();
+                    System.out.print("Enter year of manufacture (" + VehicleValidator.MIN_YEAR + "–" + maxYear + "): ");
+                    car.setYear(getIntInput(input, VehicleValidator.MIN_YEAR, maxYear));
 
                     // Confirm and Save
                     System.out.println("\nConfirm vehicle details:");
                     printVehicleDetails(car);
                     System.out.print("Save this vehicle? (yes/no): ");
                     if (input.nextLine().trim().equalsIgnoreCase("yes")) {
-                        cars.add(car);
-                        System.out.println("Vehicle saved successfully.\n");
+                        if (manager.addCar(car)) {
+                            System.out.println("Vehicle saved successfully.\n");
+                        } else {
+                            System.out.println("VIN or plate was registered meanwhile. Vehicle not saved.\n");
+                        }
                     } else {
                         System.out.println("Vehicle not saved.\n");
                     }
@@ -128,18 +151,13 @@ public class Main {
                 case 2 -> {
                     // ======== VIEW VEHICLES =========
                     System.out.println("\n====== REGISTERED VEHICLES ======");
-                    if (cars.isEmpty()) {
+                    if (manager.size() == 0) {
                         System.out.println("No vehicles registered.\n");
                     } else {
-                        int count = 1;
-                        int totalMileage = 0;
-                        for (Car c : cars) {
-                            System.out.println("\nVehicle #" + count++);
-                            printVehicleDetails(c);
-                            totalMileage += c.getMileage();
-                        }
-                        System.out.println("\nTotal Registered: " + cars.size());
-                        System.out.println("Combined Mileage: " + totalMileage + " km");
+                        showVehiclePages(input, manager);
+                        FleetStats stats = manager.getStats();
+                        System.out.println("\nTotal Registered: " + stats.getTotal());
+                        System.out.println("Combined Mileage: " + stats.getMileageSum() + " km");
                     }
                 }
 
@@ -147,20 +165,22 @@ public class Main {
                     // ======= SEARCH VEHICLE =======
                     System.out.print("\nEnter VIN or Plate to search: ");
                     String searchKey = input.nextLine().trim().toUpperCase();
-                    boolean found = false;
-
-                    for (Car c : cars) {
-                        if (c.getVin().equalsIgnoreCase(searchKey)
-                                || c.getPlateNumber().equalsIgnoreCase(searchKey)) {
-                            System.out.println("\nVehicle found:");
-                            printVehicleDetails(c);
-                            found = true;
-                            break;
-                        }
-                    }
+                    Car found = manager.findCar(searchKey);
 
-                    if (!found) {
-                        System.out.println("No vehicle found with that VIN or plate.");
+                    if (found != null) {
+                        System.out.println("\nVehicle found:");
+                        printVehicleDetails(found);
+                    } else {
+                        // Fall back to partial and near-miss matches
+                        List<Car> similar = manager.search(searchKey, 5);
+                        if (similar.isEmpty()) {
+                            System.out.println("No vehicle found with that VIN or plate.");
+                        } else {
+                            System.out.println("\nNo exact match. Closest matches:");
+                            for (Car c : similar) {
+                                printVehicleDetails(c);
+                            }
+                        }
                     }
                 }
 
@@ -168,19 +188,11 @@ public class Main {
                     // ======= DELETE VEHICLE =======
                     System.out.print("\nEnter VIN to delete: ");
                     String deleteVin = input.nextLine().trim().toUpperCase();
-                    Car toDelete = null;
 
-                    for (Car c : cars) {
-                        if (c.getVin().equalsIgnoreCase(deleteVin)) {
-                            toDelete = c;
-                            break;
-                        }
-                    }
-
-                    if (toDelete != null) {
+                    if (manager.containsVin(deleteVin)) {
                         System.out.print("Confirm deletion (yes/no): ");
                         if (input.nextLine().trim().equalsIgnoreCase("yes")) {
-                            cars.remove(toDelete);
+                            manager.deleteCar(deleteVin);
                             System.out.println("Vehicle deleted.\n");
                         } else {
                             System.out.println("Deletion cancelled.\n");
@@ -196,10 +208,49 @@ public class Main {
             }
 
         } while (menuOption != 5);
+
+        manager.close();
     }
 
     // ------------------ HELPER METHODS -------------------
 
+    // Runs commands from a file ("-" for stdin); returns the exit code
+    public static int runBatch(String source) {
+        VehicleManager manager;
+        try {
+            manager = new VehicleManager(VehicleManager.DEFAULT_DATA_DIR);
+        } catch (IOException e) {
+            System.err.println("Could not open saved vehicles: " + e.getMessage());
+            return 2;
+        }
+        long start = System.nanoTime();
+        try (Reader in = source.equals("-")
+                ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                : Files.newBufferedReader(Paths.get(source), StandardCharsets.UTF_8)) {
+            Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+            BatchCommandRunner.Summary summary = new BatchCommandRunner(manager).run(in, out);
+            System.err.printf("%d command(s), %d failed, in %.2f s%n", summary.getCommands(),
+                    summary.getFailures(), (System.nanoTime() - start) / 1e9);
+            return summary.getFailures() == 0 ? 0 : 1;
+        } catch (IOException e) {
+            System.err.println("Batch run failed: " + e.getMessage());
+            return 2;
+        } finally {
+            manager.close();
+        }
+    }
+
+    // Opens the saved registry, falling back to memory if it cannot be read
+    public static VehicleManager openManager() {
+        try {
+            return new VehicleManager(VehicleManager.DEFAULT_DATA_DIR);
+        } catch (IOException e) {
+            System.out.println("Warning: could not open saved vehicles (" + e.getMessage() + ").");
+            System.out.println("Changes made in this session will not be saved.");
+            return new VehicleManager();
+        }
+    }
+
     public static void printMenu() {
         System.out.println("\n---------------- MAIN MENU ----------------");
         System.out.println("1. Register a new vehicle");
@@ -246,6 +297,21 @@ public class Main {
         }
     }
 
+    // Lists vehicles a page at a time until the user stops or the list ends
+    public static void showVehiclePages(Scanner input, VehicleManager manager) {
+        VehicleListPrinter printer = new VehicleListPrinter(manager, System.out, PAGE_SIZE);
+        try {
+            while (printer.printNextPage()) {
+                System.out.print("-- Press Enter for more, or q to stop: ");
+                if (input.nextLine().trim().equalsIgnoreCase("q")) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Could not list vehicles: " + e.getMessage());
+        }
+    }
+
     public static void printVehicleDetails(Car c) {
         System.out.println("Make         : " + c.getMake());
         System.out.println("Model        : " + c.getModel());
@@ -257,12 +323,12 @@ public class Main {
     }
 
     // Checks if a VIN is already registered
-    public static boolean vinExists(ArrayList<Car> cars, String vin) {
-        return cars.stream().anyMatch(c -> c.getVin().equalsIgnoreCase(vin));
+    public static boolean vinExists(VehicleManager manager, String vin) {
+        return manager.containsVin(vin);
     }
 
     // Checks if a plate number is already registered
-    public static boolean plateExists(ArrayList<Car> cars, String plate) {
-        return cars.stream().anyMatch(c -> c.getPlateNumber().equalsIgnoreCase(plate));
+    public static boolean plateExists(VehicleManager manager, String plate) {
+        return manager.containsPlate(plate);
     }
 }
@@ -2,6 +2,9 @@ package com.vehicle.reg;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
 
 /**
  * -----------------------------------------------------------------------------
@@ -11,17 +14,29 @@ import java.awt.*;
  *
  * This is the main application frame which acts as the Home/Menu screen.
  * It allows users to navigate to Register, View, Search, Delete and Exit options.
+ *
+ * Registry work runs on AsyncRegistry's worker threads, with a
+ * ProgressDialog for anything slow, so the window stays responsive.
  * -----------------------------------------------------------------------------
  */
 public class MainFrame extends JFrame {
 
     // Manager instance to handle vehicle operations (store, search, delete)
-    private final VehicleManager manager = new VehicleManager();
+    private final VehicleManager manager;
+
+    // Runs manager operations off the event dispatch thread
+    private final AsyncRegistry registry;
 
     public MainFrame() {
+        manager = openManager();
+        registry = new AsyncRegistry(manager);
+        manager.getMetrics().registerMBean(); // visible in JConsole / VisualVM
+        // Flush saved vehicles however the application exits
+        Runtime.getRuntime().addShutdownHook(new Thread(manager::close));
+
         // Set up the main window (frame)
         setTitle("Vehicle Registration System");
-        setSize(400, 450);
+        setSize(400, 550);
         setLocationRelativeTo(null); // Center the frame on screen
         setDefaultCloseOperation(EXIT_ON_CLOSE);
         setLayout(new BorderLayout());
@@ -37,11 +52,13 @@ public class MainFrame extends JFrame {
         JButton searchBtn = new JButton("Search Vehicle");
         JButton deleteBtn = new JButton("Delete Vehicle");
         JButton statsBtn = new JButton("View Stats");
+        JButton importBtn = new JButton("Import CSV");
+        JButton exportBtn = new JButton("Export Vehicles");
         JButton exitBtn = new JButton("Exit");
 
         // Panel to arrange the buttons vertically with spacing
         JPanel buttonPanel = new JPanel();
-        buttonPanel.setLayout(new GridLayout(6, 1, 10, 10)); // Now 6 rows for 6 buttons
+        buttonPanel.setLayout(new GridLayout(8, 1, 10, 10)); // Now 8 rows for 8 buttons
         buttonPanel.setBorder(BorderFactory.createEmptyBorder(20, 40, 20, 40));
 
         // Add buttons to the panel in order
@@ -50,6 +67,8 @@ public class MainFrame extends JFrame {
         buttonPanel.add(searchBtn);
         buttonPanel.add(deleteBtn);
         buttonPanel.add(statsBtn);
+        buttonPanel.add(importBtn);
+        buttonPanel.add(exportBtn);
         buttonPanel.add(exitBtn);
 
         // Add the button panel to the center of the frame
@@ -67,7 +86,7 @@ public class MainFrame extends JFrame {
 
         // Register button opens the RegisterForm dialog
         registerBtn.addActionListener(e -> {
-            RegisterForm form = new RegisterForm(this, manager);
+            RegisterForm form = new RegisterForm(this, registry);
             form.setVisible(true);
         });
 
@@ -81,18 +100,15 @@ public class MainFrame extends JFrame {
         searchBtn.addActionListener(e -> {
             String query = JOptionPane.showInputDialog(this, "Enter VIN or Plate:", "Search Vehicle", JOptionPane.QUESTION_MESSAGE);
             if (query != null && !query.trim().isEmpty()) {
-                Car found = manager.findCar(query.trim());
-                if (found != null) {
-                    String info = "Make: " + found.getMake() +
-                            "\nModel: " + found.getModel() +
-                            "\nVIN: " + found.getVin() +
-                            "\nPlate: " + found.getPlateNumber() +
-                            "\nMileage: " + found.getMileage() + " km" +
-                            "\nYear: " + found.getYear();
-                    JOptionPane.showMessageDialog(this, info, "Vehicle Found", JOptionPane.INFORMATION_MESSAGE);
-                } else {
-                    JOptionPane.showMessageDialog(this, "No vehicle found.", "Search Result", JOptionPane.WARNING_MESSAGE);
-                }
+                ProgressDialog.watch(this, "Searching...", registry.findCar(query.trim()), null, found -> {
+                    if (found != null) {
+                        showVehicle(found);
+                    } else {
+                        // Fall back to partial and near-miss matches
+                        ProgressDialog.watch(this, "Searching...", registry.search(query.trim(), 10), null,
+                                this::showSimilar);
+                    }
+                });
             }
         });
 
@@ -100,20 +116,118 @@ public class MainFrame extends JFrame {
         deleteBtn.addActionListener(e -> {
             String vin = JOptionPane.showInputDialog(this, "Enter VIN to delete:", "Delete Vehicle", JOptionPane.WARNING_MESSAGE);
             if (vin != null && !vin.trim().isEmpty()) {
-                boolean success = manager.deleteCar(vin.trim());
-                if (success) {
-                    JOptionPane.showMessageDialog(this, "Vehicle deleted successfully.", "Deleted", JOptionPane.INFORMATION_MESSAGE);
-                } else {
-                    JOptionPane.showMessageDialog(this, "Vehicle not found.", "Error", JOptionPane.ERROR_MESSAGE);
-                }
+                ProgressDialog.watchUntilDone(this, "Deleting...", registry.deleteCar(vin.trim()), success -> {
+                    if (success) {
+                        JOptionPane.showMessageDialog(this, "Vehicle deleted successfully.", "Deleted", JOptionPane.INFORMATION_MESSAGE);
+                    } else {
+                        JOptionPane.showMessageDialog(this, "Vehicle not found.", "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                });
             }
         });
 
         // Stats button opens the ExtendedFeatures dialog for insights
         statsBtn.addActionListener(e -> {
-            ExtendedFeatures stats = new ExtendedFeatures(this, manager);
+            ExtendedFeatures stats = new ExtendedFeatures(this, registry);
             stats.setVisible(true);
         });
+
+        // Import button loads vehicles from a CSV file and reports rejected rows
+        importBtn.addActionListener(e -> importCsv());
+
+        // Export button writes all vehicles to a CSV or JSON-lines file
+        exportBtn.addActionListener(e -> exportVehicles());
+    }
+
+    /**
+     * Shows the details of one vehicle.
+     */
+    private void showVehicle(Car found) {
+        String info = "Make: " + found.getMake() +
+                "\nModel: " + found.getModel() +
+                "\nVIN: " + found.getVin() +
+                "\nPlate: " + found.getPlateNumber() +
+                "\nMileage: " + found.getMileage() + " km" +
+                "\nYear: " + found.getYear();
+        JOptionPane.showMessageDialog(this, info, "Vehicle Found", JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /**
+     * Lists the closest matches when a search has no exact match.
+     */
+    private void showSimilar(List<Car> similar) {
+        if (similar.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "No vehicle found.", "Search Result", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        StringBuilder sb = new StringBuilder("No exact match. Closest matches:\n");
+        for (Car c : similar) {
+            sb.append("\n").append(c.getVin()).append("  ").append(c.getPlateNumber())
+              .append("  ").append(c.getMake()).append(" ").append(c.getModel())
+              .append(" (").append(c.getYear()).append(")");
+        }
+        JOptionPane.showMessageDialog(this, sb.toString(), "Search Result", JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /**
+     * Lets the user pick a CSV file, imports it in the background and
+     * shows a summary.
+     */
+    private void importCsv() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import Vehicles (make,model,vin,plate,mileage,year)");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        TaskProgress progress = new TaskProgress();
+        ProgressDialog.watch(this, "Importing " + chooser.getSelectedFile().getName() + "...",
+                registry.importCsv(chooser.getSelectedFile().toPath(), progress), progress, report -> {
+                    List<BulkImporter.Rejection> rejections = report.getRejections();
+                    StringBuilder sb = new StringBuilder();
+                    sb.append("Imported: ").append(report.getImported()).append("\n");
+                    sb.append("Rejected: ").append(rejections.size()).append("\n");
+                    for (int i = 0; i < Math.min(rejections.size(), 20); i++) {
+                        sb.append("\n").append(rejections.get(i));
+                    }
+                    if (rejections.size() > 20) {
+                        sb.append("\n...");
+                    }
+                    JOptionPane.showMessageDialog(this, sb.toString(), "Import Complete", JOptionPane.INFORMATION_MESSAGE);
+                });
+    }
+
+    /**
+     * Lets the user pick a destination and exports every vehicle to it in
+     * the background. Files ending in .jsonl are written as JSON lines,
+     * others as CSV.
+     */
+    private void exportVehicles() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Export Vehicles (.csv or .jsonl)");
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = chooser.getSelectedFile().toPath();
+        TaskProgress progress = new TaskProgress();
+        ProgressDialog.watch(this, "Exporting to " + file.getFileName() + "...",
+                registry.export(file, VehicleExporter.formatFor(file), progress), progress, count ->
+                        JOptionPane.showMessageDialog(this, "Exported " + count + " vehicles to " + file.getFileName(),
+                                "Export Complete", JOptionPane.INFORMATION_MESSAGE));
+    }
+
+    /**
+     * Opens the saved registry, or an empty in-memory one if it cannot be read.
+     */
+    private VehicleManager openManager() {
+        try {
+            return new VehicleManager(VehicleManager.DEFAULT_DATA_DIR);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this,
+                    "Could not open saved vehicles:\n" + e.getMessage() +
+                            "\n\nChanges made in this session will not be saved.",
+                    "Storage Warning", JOptionPane.WARNING_MESSAGE);
+            return new VehicleManager();
+        }
     }
 
     // Entry point: launches the application
@@ -0,0 +1,323 @@
+package com.vehicle.reg;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * -----------------------------------------------------------------------------
+ * PlateDirectory.java
+ *
+ * One shard's part of the cluster-wide plate index used by ShardedRegistry.
+ * Vehicles live on the shard that owns their VIN, so two shards could each
+ * accept the same plate number; to prevent that, every plate is first
+ * claimed for a VIN on the shard that owns the plate's hash, and only the
+ * claim holder may register it.
+ *
+ * Claims are atomic per plate. A claim remembers when it was made, so a
+ * claim whose registration never completed (its VIN is not registered with
+ * that plate) can be taken over once it is old enough.
+ *
+ * Claims are kept in plates.log in the shard's data directory: every
+ * claim and release is appended and forced to disk before it is
+ * acknowledged, so a restarted shard comes back with the same claims (and
+ * the same claim times). The log is replayed on open and rewritten with
+ * only the current claims once it holds mostly superseded records.
+ * ShardedRegistry.rebuildPlateDirectory() is only needed for data from
+ * before claims were logged.
+ *
+ * Record layout: [int length][payload][int CRC32 of payload], as in the
+ * vehicle journal; a torn record at the end is cut off when opening.
+ *
+ * Lookups are lock-free; claims and releases are serialized so the log
+ * order matches the order they were applied in. Thread-safe.
+ * -----------------------------------------------------------------------------
+ */
+class PlateDirectory implements Closeable {
+
+    /** Outcome of claim() */
+    enum Result {
+        /** The plate was free and is now claimed for the VIN */
+        CLAIMED,
+        /** The VIN already held the claim */
+        ALREADY_HELD,
+        /** Another VIN holds the claim */
+        TAKEN
+    }
+
+    /**
+     * A plate's current holder.
+     */
+    static final class Claim {
+
+        final String vin;
+        final long since;
+
+        Claim(String vin, long since) {
+            this.vin = vin;
+            this.since = since;
+        }
+
+        long ageMillis() {
+            return System.currentTimeMillis() - since;
+        }
+    }
+
+    /** Name of the claim log in the data directory */
+    static final String LOG_FILE = "plates.log";
+
+    // Record types stored in the first payload byte
+    private static final byte OP_CLAIM = 1;
+    private static final byte OP_RELEASE = 2;
+
+    // Largest payload of a valid record (two short strings and a time)
+    private static final int MAX_RECORD = 1024;
+
+    // Rewrite the log once it holds this many records more than live claims
+    static final int COMPACT_SLACK = 4096;
+
+    // Normalized plate -> claim
+    private final ConcurrentHashMap<String, Claim> claims = new ConcurrentHashMap<>();
+
+    private final Path logFile;
+    private final CRC32 crc = new CRC32();
+    private final ByteBuffer record = ByteBuffer.allocate(MAX_RECORD + 8);
+    private FileChannel log;
+    private long records;
+
+    /**
+     * Opens the claims logged in a data directory, creating the log if
+     * there is none.
+     *
+     * @throws IOException if the log cannot be read or opened for writing
+     */
+    PlateDirectory(Path dataDir) throws IOException {
+        Files.createDirectories(dataDir);
+        this.logFile = dataDir.resolve(LOG_FILE);
+        long validEnd = replay();
+        this.log = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (log.size() > validEnd) {
+            log.truncate(validEnd); // torn tail from a crash
+            log.force(false);
+        }
+        log.position(validEnd);
+    }
+
+    /**
+     * Claims a plate for a VIN.
+     *
+     * @param replacing VIN whose claim may be taken over (a stale claim the
+     *                  caller has checked), or null to claim only a free plate
+     */
+    synchronized Result claim(String plate, String vin, String replacing) throws IOException {
+        String key = normalize(plate);
+        String owner = normalize(vin);
+        Claim current = claims.get(key);
+        if (current != null && !current.vin.equals(replacing == null ? null : normalize(replacing))) {
+            return current.vin.equals(owner) ? Result.ALREADY_HELD : Result.TAKEN;
+        }
+        Claim claim = new Claim(owner, System.currentTimeMillis());
+        claims.put(key, claim);
+        try {
+            append(OP_CLAIM, key, claim);
+        } catch (IOException | RuntimeException e) {
+            if (current == null) {
+                claims.remove(key);
+            } else {
+                claims.put(key, current);
+            }
+            throw e;
+        }
+        compactIfNeeded();
+        return Result.CLAIMED;
+    }
+
+    /** Returns the plate's claim, or null if it is free. */
+    Claim get(String plate) {
+        return claims.get(normalize(plate));
+    }
+
+    /**
+     * Frees a plate if the given VIN holds it.
+     *
+     * @return true if the claim was removed
+     */
+    synchronized boolean release(String plate, String vin) throws IOException {
+        String key = normalize(plate);
+        Claim current = claims.get(key);
+        if (current == null || !current.vin.equals(normalize(vin))) {
+            return false;
+        }
+        claims.remove(key);
+        try {
+            append(OP_RELEASE, key, current);
+        } catch (IOException | RuntimeException e) {
+            claims.put(key, current);
+            throw e;
+        }
+        compactIfNeeded();
+        return true;
+    }
+
+    /** Returns the number of claimed plates. */
+    int size() {
+        return claims.size();
+    }
+
+    /**
+     * Closes the log. Claims and releases fail afterwards.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (log.isOpen()) {
+            log.close();
+        }
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    /**
+     * Writes one record and forces it to disk. Callers apply the change to
+     * the claims first (and undo it if this fails), so a rewrite of the log
+     * that follows already includes it.
+     */
+    private void append(byte op, String plate, Claim claim) throws IOException {
+        record.clear();
+        record.putInt(0);
+        encode(op, plate, claim);
+        int length = record.position() - 4;
+        record.putInt(0, length);
+        record.putInt(checksum(record, 4, length));
+        record.flip();
+        while (record.hasRemaining()) {
+            log.write(record);
+        }
+        log.force(false);
+        records++;
+    }
+
+    /**
+     * Rewrites the log once it has grown well past the live claims.
+     */
+    private void compactIfNeeded() throws IOException {
+        if (records > 2L * claims.size() + COMPACT_SLACK) {
+            rewrite();
+        }
+    }
+
+    private void encode(byte op, String plate, Claim claim) throws IOException {
+        byte[] plateBytes = plate.getBytes(StandardCharsets.UTF_8);
+        byte[] vinBytes = claim.vin.getBytes(StandardCharsets.UTF_8);
+        if (plateBytes.length + vinBytes.length + 13 > MAX_RECORD) {
+            throw new IOException("Plate or VIN too long to log: " + plate);
+        }
+        record.put(op);
+        record.putShort((short) plateBytes.length).put(plateBytes);
+        record.putShort((short) vinBytes.length).put(vinBytes);
+        record.putLong(claim.since);
+    }
+
+    /**
+     * Replaces the log with one claim record per current claim, written to
+     * a temporary file and renamed over the log so a crash leaves one or
+     * the other intact.
+     */
+    private void rewrite() throws IOException {
+        Path temp = logFile.resolveSibling(LOG_FILE + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ByteBuffer.allocate(1 << 16);
+            for (Map.Entry<String, Claim> entry : claims.entrySet()) {
+                if (buf.remaining() < record.capacity()) {
+                    writeFully(out, buf);
+                }
+                record.clear();
+                record.putInt(0);
+                encode(OP_CLAIM, entry.getKey(), entry.getValue());
+                int length = record.position() - 4;
+                record.putInt(0, length);
+                record.putInt(checksum(record, 4, length));
+                record.flip();
+                buf.put(record);
+            }
+            writeFully(out, buf);
+            out.force(false);
+        }
+        log.close();
+        try {
+            Files.move(temp, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            records = claims.size();
+        } finally {
+            log = FileChannel.open(logFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            out.write(buf);
+        }
+        buf.clear();
+    }
+
+    /**
+     * Applies every intact record of the log to the claims.
+     *
+     * @return offset just past the last intact record
+     */
+    private long replay() throws IOException {
+        if (!Files.exists(logFile)) {
+            return 0;
+        }
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(logFile));
+        long validEnd = 0;
+        while (buf.remaining() >= 4) {
+            int start = buf.position();
+            int length = buf.getInt();
+            if (length <= 0 || length > MAX_RECORD || buf.remaining() < length + 4
+                    || buf.getInt(start + 4 + length) != checksum(buf, start + 4, length)) {
+                break;
+            }
+            byte op = buf.get();
+            String plate = getString(buf);
+            Claim claim = new Claim(getString(buf), buf.getLong());
+            if (op == OP_CLAIM) {
+                claims.put(plate, claim);
+            } else if (op == OP_RELEASE) {
+                claims.remove(plate);
+            }
+            buf.position(start + 8 + length);
+            validEnd = buf.position();
+            records++;
+        }
+        return validEnd;
+    }
+
+    private static String getString(ByteBuffer buf) {
+        byte[] bytes = new byte[buf.getShort()];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int checksum(ByteBuffer buf, int start, int length) {
+        ByteBuffer payload = buf.duplicate();
+        payload.limit(start + length).position(start);
+        crc.reset();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static String normalize(String text) {
+        return text.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,104 @@
+package com.vehicle.reg;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * -----------------------------------------------------------------------------
+ * PostingIndex.java
+ *
+ * Secondary index from an int key (a year, a make code, a mileage bucket)
+ * to the store slots that hold it. Keys are kept sorted, so a key range
+ * such as 2010..2015 is a single sub-map lookup.
+ *
+ * Each key's slots are kept in a growable int array in ascending order:
+ * new vehicles always get the highest slot, so adding is an append. Deleted
+ * slots are left in place and skipped by readers (the store's tombstones
+ * say which are live); CarStore rebuilds the index when it packs its slots.
+ *
+ * Not thread-safe; CarStore owns it and VehicleManager guards the store.
+ * -----------------------------------------------------------------------------
+ */
+class PostingIndex {
+
+    private final NavigableMap<Integer, Postings> byKey = new TreeMap<>();
+
+    void add(int key, int slot) {
+        byKey.computeIfAbsent(key, k -> new Postings()).add(slot);
+    }
+
+    void clear() {
+        byKey.clear();
+    }
+
+    /**
+     * Returns the approximate heap used by the index, in bytes.
+     */
+    long estimatedBytes() {
+        long bytes = 48;
+        for (Postings postings : byKey.values()) {
+            // map entry + boxed key + Postings + array header, then the slots
+            bytes += 40 + 16 + 24 + 16 + 4L * postings.slots.length;
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the slot lists of every key in from..to (inclusive).
+     */
+    List<Postings> range(int from, int to) {
+        if (from > to) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(byKey.subMap(from, true, to, true).values());
+    }
+
+    // =======================
+    // Slot list
+    // =======================
+
+    /**
+     * Ascending slots of one key, possibly including deleted slots.
+     */
+    static class Postings {
+
+        private int[] slots = new int[8];
+        private int size;
+
+        private void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size + (size >> 1));
+            }
+            slots[size++] = slot;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int get(int index) {
+            return slots[index];
+        }
+
+        /**
+         * Returns the position of the first slot >= the given slot,
+         * or size() if there is none.
+         */
+        int firstAtLeast(int slot) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (slots[mid] < slot) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
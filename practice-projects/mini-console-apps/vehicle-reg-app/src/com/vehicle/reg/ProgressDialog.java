@@ -0,0 +1,141 @@
+package com.vehicle.reg;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * -----------------------------------------------------------------------------
+ * ProgressDialog.java
+ *
+ * Shows a progress bar with a Cancel button while a background registry
+ * task (see AsyncRegistry) runs, then passes the result to the screen on
+ * the event dispatch thread.
+ *
+ * Quick tasks never flash a dialog: it only appears if the task is still
+ * running after SHOW_DELAY ms. Errors are shown in a message box.
+ *
+ * Registrations and deletes cannot be called off once a worker has
+ * started them, so watchUntilDone() shows them without a Cancel button
+ * and always reports what actually happened.
+ * -----------------------------------------------------------------------------
+ */
+public class ProgressDialog extends JDialog {
+
+    // Tasks finishing sooner than this (ms) show no dialog
+    private static final int SHOW_DELAY = 250;
+
+    // How often the progress bar is refreshed (ms)
+    private static final int REFRESH_INTERVAL = 100;
+
+    private final JProgressBar bar = new JProgressBar(0, 1000);
+
+    /**
+     * @param onCancel run by the Cancel button, or null for no button
+     */
+    private ProgressDialog(Window parent, String message, Runnable onCancel) {
+        super(parent, "Please wait", ModalityType.APPLICATION_MODAL);
+        setDefaultCloseOperation(DO_NOTHING_ON_CLOSE);
+        setLayout(new BorderLayout(10, 10));
+
+        JLabel label = new JLabel(message);
+        label.setBorder(BorderFactory.createEmptyBorder(15, 20, 0, 20));
+        add(label, BorderLayout.NORTH);
+
+        bar.setIndeterminate(true);
+        JPanel center = new JPanel(new BorderLayout());
+        center.setBorder(BorderFactory.createEmptyBorder(0, 20, 0, 20));
+        center.add(bar);
+        add(center, BorderLayout.CENTER);
+
+        JPanel bottom = new JPanel();
+        if (onCancel != null) {
+            JButton cancelBtn = new JButton("Cancel");
+            cancelBtn.addActionListener(e -> onCancel.run());
+            bottom.add(cancelBtn);
+        }
+        add(bottom, BorderLayout.SOUTH);
+
+        setSize(350, 150);
+        setLocationRelativeTo(parent);
+    }
+
+    /**
+     * Watches a background task and delivers its result on the EDT.
+     * Must be called on the EDT.
+     *
+     * @param parent    component the dialog is centred on
+     * @param message   text shown above the progress bar
+     * @param task      the running task
+     * @param progress  tracker for a determinate bar, or null for an
+     *                  indeterminate one
+     * @param onSuccess receives the result unless the task fails or is cancelled
+     */
+    public static <T> void watch(Component parent, String message, CompletableFuture<T> task,
+                                 TaskProgress progress, Consumer<T> onSuccess) {
+        show(parent, message, task, progress, () -> {
+            task.cancel(false);
+            if (progress != null) {
+                progress.cancel();
+            }
+        }, onSuccess);
+    }
+
+    /**
+     * Like watch(), for a change that goes ahead once submitted (adding or
+     * deleting a vehicle): there is no Cancel button, so the result is
+     * always delivered. Must be called on the EDT.
+     */
+    public static <T> void watchUntilDone(Component parent, String message, CompletableFuture<T> task,
+                                          Consumer<T> onSuccess) {
+        show(parent, message, task, null, null, onSuccess);
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    private static <T> void show(Component parent, String message, CompletableFuture<T> task,
+                                 TaskProgress progress, Runnable onCancel, Consumer<T> onSuccess) {
+        Window owner = parent == null ? null : SwingUtilities.getWindowAncestor(parent);
+        if (parent instanceof Window) {
+            owner = (Window) parent;
+        }
+        ProgressDialog dialog = new ProgressDialog(owner, message, onCancel);
+
+        Timer refresh = new Timer(REFRESH_INTERVAL, e -> {
+            double fraction = progress == null ? -1 : progress.getFraction();
+            if (fraction >= 0) {
+                dialog.bar.setIndeterminate(false);
+                dialog.bar.setValue((int) (fraction * 1000));
+            }
+        });
+        Timer show = new Timer(SHOW_DELAY, e -> {
+            if (!task.isDone()) {
+                refresh.start();
+                dialog.setVisible(true); // blocks here while modal
+            }
+        });
+        show.setRepeats(false);
+        show.start();
+
+        task.whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+            show.stop();
+            refresh.stop();
+            dialog.dispose();
+            if (task.isCancelled() || error instanceof CancellationException
+                    || error != null && error.getCause() instanceof CancellationException) {
+                return;
+            }
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                JOptionPane.showMessageDialog(parent, "Operation failed: " + cause.getMessage(),
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            onSuccess.accept(result);
+        }));
+    }
+}
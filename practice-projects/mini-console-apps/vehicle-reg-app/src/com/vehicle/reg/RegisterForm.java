@@ -3,24 +3,29 @@ package com.vehicle.reg;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * -----------------------------------------------------------------------------
  * RegisterForm.java
  * Improved layout version: Inputs now spaced and aligned properly
  * Author: Ndzalama Tihuhlu
+ *
+ * Saving runs on AsyncRegistry's worker threads; Save and Cancel are
+ * disabled until the registry has answered. A registration cannot be
+ * called off once sent, so the progress dialog has no Cancel button and
+ * the outcome is always shown.
  * -----------------------------------------------------------------------------
  */
 public class RegisterForm extends JDialog {
 
     private JTextField makeField, modelField, vinField, plateField, mileageField, yearField;
     private JButton saveButton, cancelButton;
-    private VehicleManager vehicleManager;
+    private AsyncRegistry registry;
 
-    public RegisterForm(JFrame parent, VehicleManager manager) {
+    public RegisterForm(JFrame parent, AsyncRegistry registry) {
         super(parent, "Register New Vehicle", true);
-        this.vehicleManager = manager;
+        this.registry = registry;
 
         setSize(450, 400);
         setLocationRelativeTo(parent);
@@ -71,12 +76,23 @@ public class RegisterForm extends JDialog {
                 car.setMileage(Integer.parseInt(mileageField.getText().trim()));
                 car.setYear(Integer.parseInt(yearField.getText().trim()));
 
-                if (vehicleManager.addCar(car)) {
-                    JOptionPane.showMessageDialog(this, "Vehicle registered successfully.");
-                    dispose();
-                } else {
-                    JOptionPane.showMessageDialog(this, "VIN or Plate already exists.", "Error", JOptionPane.ERROR_MESSAGE);
-                }
+                // Disable the buttons until the registry answers, so the car
+                // cannot be sent twice or the form closed on a pending save
+                saveButton.setEnabled(false);
+                cancelButton.setEnabled(false);
+                CompletableFuture<Boolean> task = registry.addCar(car);
+                task.whenComplete((added, error) -> SwingUtilities.invokeLater(() -> {
+                    saveButton.setEnabled(true);
+                    cancelButton.setEnabled(true);
+                }));
+                ProgressDialog.watchUntilDone(this, "Saving...", task, added -> {
+                    if (added) {
+                        JOptionPane.showMessageDialog(this, "Vehicle registered successfully.");
+                        dispose();
+                    } else {
+                        JOptionPane.showMessageDialog(this, "VIN or Plate already exists.", "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                });
             }
         });
     }
@@ -103,30 +119,32 @@ public class RegisterForm extends JDialog {
         }
 
         String vin = vinField.getText().trim();
-        if (vin.length() != 17 || !Pattern.matches("[A-HJ-NPR-Z0-9]{17}", vin)) {
-            JOptionPane.showMessageDialog(this, "VIN must be 17 characters (A-Z, 0-9 only).", "Input Error", JOptionPane.ERROR_MESSAGE);
+        if (!VehicleValidator.isValidVin(vin)) {
+            JOptionPane.showMessageDialog(this, "VIN must be 17 characters (A-Z, 0-9 only, no I, O or Q).", "Input Error", JOptionPane.ERROR_MESSAGE);
             return false;
         }
 
         String plate = plateField.getText().trim();
-        if (!Pattern.matches("[A-Z0-9]{6,8}", plate)) {
-            JOptionPane.showMessageDialog(this, "Enter a valid license plate number.", "Input Error", JOptionPane.ERROR_MESSAGE);
+        if (!VehicleValidator.isValidPlate(plate)) {
+            JOptionPane.showMessageDialog(this, "Enter a valid GP plate number (e.g. ABC123GP or AB12CDGP).", "Input Error", JOptionPane.ERROR_MESSAGE);
             return false;
         }
 
         try {
             int mileage = Integer.parseInt(mileageField.getText().trim());
-            if (mileage < 0 || mileage > 2_000_000) throw new NumberFormatException();
+            if (!VehicleValidator.isValidMileage(mileage)) throw new NumberFormatException();
         } catch (NumberFormatException ex) {
-            JOptionPane.showMessageDialog(this, "Mileage must be a number between 0 and 2,000,000.", "Input Error", JOptionPane.ERROR_MESSAGE);
+            JOptionPane.showMessageDialog(this, String.format("Mileage must be a number between 0 and %,d.",
+                    VehicleValidator.MAX_MILEAGE), "Input Error", JOptionPane.ERROR_MESSAGE);
             return false;
         }
 
         try {
             int year = Integer.parseInt(yearField.getText().trim());
-            if (year < 1950 || year > 2025) throw new NumberFormatException();
+            if (!VehicleValidator.isValidYear(year)) throw new NumberFormatException();
         } catch (NumberFormatException ex) {
-            JOptionPane.showMessageDialog(this, "Enter a valid manufacturing year (1950–2025).", "Input Error", JOptionPane.ERROR_MESSAGE);
+            JOptionPane.showMessageDialog(this, "Enter a valid manufacturing year (" + VehicleValidator.MIN_YEAR
+                    + "–" + VehicleValidator.maxYear() + ").", "Input Error", JOptionPane.ERROR_MESSAGE);
             return false;
         }
 
@@ -0,0 +1,82 @@
+package com.vehicle.reg;
+
+/**
+ * -----------------------------------------------------------------------------
+ * RegistryEvent.java
+ *
+ * One change to the registry, as delivered to a RegistryListener: a vehicle
+ * was added, deleted, or (after coalescing) deleted and registered again
+ * with new details. The Car objects are copies taken when the change was
+ * made, so they can be read on any thread.
+ *
+ * Each event carries the registry version right after its change, so a
+ * view built from a snapshot can tell which events the snapshot already
+ * includes (those with a version up to the snapshot's).
+ * -----------------------------------------------------------------------------
+ */
+public class RegistryEvent {
+
+    /** Kinds of change */
+    public enum Type {
+        ADDED,
+        DELETED,
+        /** The VIN was deleted and registered again; see getPrevious() */
+        UPDATED
+    }
+
+    private final Type type;
+    private final Car car;
+    private final Car previous;
+    private final long version;
+
+    RegistryEvent(Type type, Car car, Car previous, long version) {
+        this.type = type;
+        this.car = car;
+        this.previous = previous;
+        this.version = version;
+    }
+
+    static RegistryEvent added(Car car, long version) {
+        return new RegistryEvent(Type.ADDED, car, null, version);
+    }
+
+    static RegistryEvent deleted(Car car, long version) {
+        return new RegistryEvent(Type.DELETED, car, null, version);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the vehicle as registered after the change, or as it was
+     * before being removed for DELETED.
+     */
+    public Car getCar() {
+        return car;
+    }
+
+    /** Returns the vehicle's details before an UPDATED change, otherwise null. */
+    public Car getPrevious() {
+        return previous;
+    }
+
+    /**
+     * Returns the registry version once this change was made (see
+     * VehicleManager.getVersion()); snapshots of that version or later
+     * include it.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /** Returns the (normalized) VIN of the vehicle that changed. */
+    public String getVin() {
+        return car.getVin();
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + car.getVin();
+    }
+}
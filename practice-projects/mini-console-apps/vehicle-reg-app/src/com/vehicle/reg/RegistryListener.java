@@ -0,0 +1,36 @@
+package com.vehicle.reg;
+
+import java.util.List;
+
+/**
+ * -----------------------------------------------------------------------------
+ * RegistryListener.java
+ *
+ * Receives the changes made to a VehicleManager (see addListener()).
+ *
+ * The manager calls registryChanged() once per operation (an add, a batch,
+ * a delete or a bulk delete) with every change it made, once the registry
+ * lock has been released. Operations are reported one at a time and in
+ * the order they were made, on the thread of a writer, which need not be
+ * the one that made the change. The call may come after the operation has
+ * returned, and other changes may have been made by then (see
+ * RegistryEvent.getVersion()). Implementations should return quickly, as
+ * later events wait for them; GUI code should wrap itself in an
+ * EdtEventBatcher, which hands the events over to the Swing event thread.
+ * -----------------------------------------------------------------------------
+ */
+public interface RegistryListener {
+
+    /**
+     * Called with the changes made by one registry operation (never empty).
+     */
+    void registryChanged(List<RegistryEvent> events);
+
+    /**
+     * Called instead of registryChanged() when too many changes arrived to
+     * pass on one by one (e.g. a large import); the receiver should re-read
+     * the registry. The manager itself never calls this.
+     */
+    default void registryReset() {
+    }
+}
@@ -0,0 +1,343 @@
+package com.vehicle.reg;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * -----------------------------------------------------------------------------
+ * RegistryMetrics.java
+ *
+ * Operational counters and latency histograms for one VehicleManager:
+ * how many vehicles were added, rejected (duplicate or invalid), deleted
+ * and looked up, how long lookups, inserts, deletes, searches and batches
+ * took, and how large the registry is in vehicles and estimated bytes.
+ *
+ * VehicleManager updates the counters on every call; they are LongAdders
+ * and LatencyHistograms, so updates never block each other or the registry
+ * lock. Exact lookups take well under a microsecond, about as long as the
+ * two clock reads needed to time them, so only one lookup in
+ * LOOKUP_SAMPLE_RATE is timed; every lookup is still counted.
+ *
+ * Read the metrics through the getters, dump() (plain text, also served
+ * at GET /metrics by VehicleHttpServer) or JMX after registerMBean().
+ * -----------------------------------------------------------------------------
+ */
+public class RegistryMetrics implements RegistryMetricsMBean {
+
+    /** JMX domain the metrics are registered under */
+    public static final String JMX_DOMAIN = "com.vehicle.reg";
+
+    /** One in this many lookups is timed (a power of two) */
+    public static final int LOOKUP_SAMPLE_RATE = 8;
+
+    // Start time of an operation that is counted but not timed
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+
+    // Numbers the MBeans of registries opened in the same JVM
+    private static final AtomicInteger REGISTERED = new AtomicInteger();
+
+    private final IntSupplier size;
+    private final LongSupplier memory;
+
+    private final LongAdder adds = new LongAdder();
+    private final LongAdder duplicateRejects = new LongAdder();
+    private final LongAdder invalidRejects = new LongAdder();
+    private final LongAdder deletes = new LongAdder();
+    private final LongAdder deleteMisses = new LongAdder();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder lookupMisses = new LongAdder();
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    private final LatencyHistogram lookupLatency = new LatencyHistogram();
+    private final LatencyHistogram insertLatency = new LatencyHistogram();
+    private final LatencyHistogram deleteLatency = new LatencyHistogram();
+    private final LatencyHistogram searchLatency = new LatencyHistogram();
+    private final LatencyHistogram batchLatency = new LatencyHistogram();
+
+    private ObjectName objectName;
+
+    /**
+     * @param size   current number of registered vehicles
+     * @param memory current estimated size of the registry in bytes
+     */
+    RegistryMetrics(IntSupplier size, LongSupplier memory) {
+        this.size = size;
+        this.memory = memory;
+    }
+
+    // =======================
+    // Recording (VehicleManager)
+    // =======================
+
+    void recordAdd(long startNanos, boolean added) {
+        (added ? adds : duplicateRejects).increment();
+        insertLatency.recordSince(startNanos);
+    }
+
+    void recordInvalid(int count) {
+        invalidRejects.add(count);
+    }
+
+    void recordBatch(long startNanos, int added, int duplicates) {
+        batches.increment();
+        adds.add(added);
+        duplicateRejects.add(duplicates);
+        batchLatency.recordSince(startNanos);
+    }
+
+    void recordDelete(long startNanos, boolean deleted) {
+        (deleted ? deletes : deleteMisses).increment();
+        deleteLatency.recordSince(startNanos);
+    }
+
+    /** Counts a bulk delete; its duration is not added to the delete latencies. */
+    void recordDeletes(int deleted, int missed) {
+        deletes.add(deleted);
+        deleteMisses.add(missed);
+    }
+
+    /**
+     * Returns the start time to pass to recordLookup(): the clock for a
+     * sampled lookup, otherwise a marker that skips the timing.
+     */
+    long startLookup() {
+        boolean sampled = (ThreadLocalRandom.current().nextInt() & (LOOKUP_SAMPLE_RATE - 1)) == 0;
+        return sampled ? System.nanoTime() : NOT_TIMED;
+    }
+
+    void recordLookup(long startNanos, boolean found) {
+        lookups.increment();
+        if (!found) {
+            lookupMisses.increment();
+        }
+        if (startNanos != NOT_TIMED) {
+            lookupLatency.recordSince(startNanos);
+        }
+    }
+
+    void recordSearch(long startNanos) {
+        searches.increment();
+        searchLatency.recordSince(startNanos);
+    }
+
+    // =======================
+    // Registry
+    // =======================
+
+    @Override
+    public int getRegisteredVehicles() {
+        return size.getAsInt();
+    }
+
+    /**
+     * Returns the approximate heap used by the vehicle columns, hash tables
+     * and search indexes. Object headers and padding are estimated.
+     */
+    @Override
+    public long getEstimatedMemoryBytes() {
+        return memory.getAsLong();
+    }
+
+    // =======================
+    // Counters
+    // =======================
+
+    /** Vehicles registered (single adds and batches). */
+    @Override
+    public long getAdds() {
+        return adds.sum();
+    }
+
+    /** Vehicles refused because their VIN or plate was already taken. */
+    @Override
+    public long getDuplicateRejects() {
+        return duplicateRejects.sum();
+    }
+
+    /** Vehicles refused because they failed validation. */
+    @Override
+    public long getInvalidRejects() {
+        return invalidRejects.sum();
+    }
+
+    @Override
+    public long getDeletes() {
+        return deletes.sum();
+    }
+
+    /** Deletes of a VIN that was not registered. */
+    @Override
+    public long getDeleteMisses() {
+        return deleteMisses.sum();
+    }
+
+    /** Exact VIN/plate lookups (findCar). */
+    @Override
+    public long getLookups() {
+        return lookups.sum();
+    }
+
+    @Override
+    public long getLookupMisses() {
+        return lookupMisses.sum();
+    }
+
+    /** Partial and near-miss searches. */
+    @Override
+    public long getSearches() {
+        return searches.sum();
+    }
+
+    @Override
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    // =======================
+    // Latencies
+    // =======================
+
+    /** Sampled: holds one in LOOKUP_SAMPLE_RATE lookups. */
+    public LatencyHistogram getLookupLatency() {
+        return lookupLatency;
+    }
+
+    public LatencyHistogram getInsertLatency() {
+        return insertLatency;
+    }
+
+    public LatencyHistogram getDeleteLatency() {
+        return deleteLatency;
+    }
+
+    public LatencyHistogram getSearchLatency() {
+        return searchLatency;
+    }
+
+    /** Whole registerBatch() calls, not individual vehicles. */
+    public LatencyHistogram getBatchLatency() {
+        return batchLatency;
+    }
+
+    @Override
+    public double getLookupMeanMicros() {
+        return lookupLatency.getMean() / 1000;
+    }
+
+    @Override
+    public double getLookupP99Micros() {
+        return lookupLatency.getPercentile(99) / 1000.0;
+    }
+
+    @Override
+    public double getInsertMeanMicros() {
+        return insertLatency.getMean() / 1000;
+    }
+
+    @Override
+    public double getInsertP99Micros() {
+        return insertLatency.getPercentile(99) / 1000.0;
+    }
+
+    @Override
+    public double getDeleteP99Micros() {
+        return deleteLatency.getPercentile(99) / 1000.0;
+    }
+
+    @Override
+    public double getSearchP99Micros() {
+        return searchLatency.getPercentile(99) / 1000.0;
+    }
+
+    @Override
+    public double getBatchP99Micros() {
+        return batchLatency.getPercentile(99) / 1000.0;
+    }
+
+    // =======================
+    // Output
+    // =======================
+
+    /**
+     * Returns every metric as "name value" lines.
+     */
+    @Override
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+        long bytes = getEstimatedMemoryBytes();
+        line(sb, "registry.vehicles", getRegisteredVehicles());
+        sb.append(String.format("%-24s %d (%.1f MB)%n", "registry.memory.bytes", bytes, bytes / 1048576.0));
+        line(sb, "adds", getAdds());
+        line(sb, "rejects.duplicate", getDuplicateRejects());
+        line(sb, "rejects.invalid", getInvalidRejects());
+        line(sb, "deletes", getDeletes());
+        line(sb, "deletes.notFound", getDeleteMisses());
+        line(sb, "lookups", getLookups());
+        line(sb, "lookups.notFound", getLookupMisses());
+        line(sb, "searches", getSearches());
+        line(sb, "batches", getBatches());
+        latency(sb, "latency.lookup", lookupLatency);
+        latency(sb, "latency.insert", insertLatency);
+        latency(sb, "latency.delete", deleteLatency);
+        latency(sb, "latency.search", searchLatency);
+        latency(sb, "latency.batch", batchLatency);
+        return sb.toString();
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server, so they show
+     * up in JConsole/VisualVM. Does nothing if already registered.
+     *
+     * @return the name the metrics were registered under
+     * @throws IllegalStateException if JMX refuses the registration
+     */
+    public synchronized ObjectName registerMBean() {
+        if (objectName != null) {
+            return objectName;
+        }
+        try {
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":type=RegistryMetrics,id=" + REGISTERED.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            objectName = name;
+            return name;
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register registry metrics: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Removes the MBean added by registerMBean(), if any.
+     */
+    public synchronized void unregisterMBean() {
+        if (objectName == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            // Already gone; nothing left to clean up
+        }
+        objectName = null;
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    private static void line(StringBuilder sb, String name, long value) {
+        sb.append(String.format("%-24s %d%n", name, value));
+    }
+
+    private static void latency(StringBuilder sb, String name, LatencyHistogram histogram) {
+        sb.append(String.format("%-24s %s%n", name, histogram.summary()));
+    }
+}
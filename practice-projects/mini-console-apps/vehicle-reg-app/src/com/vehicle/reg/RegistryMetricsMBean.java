@@ -0,0 +1,54 @@
+package com.vehicle.reg;
+
+/**
+ * -----------------------------------------------------------------------------
+ * RegistryMetricsMBean.java
+ *
+ * Management interface of RegistryMetrics, as shown in JConsole or
+ * VisualVM under com.vehicle.reg. Latencies are in microseconds.
+ * -----------------------------------------------------------------------------
+ */
+public interface RegistryMetricsMBean {
+
+    // Registry
+    int getRegisteredVehicles();
+
+    long getEstimatedMemoryBytes();
+
+    // Counters
+    long getAdds();
+
+    long getDuplicateRejects();
+
+    long getInvalidRejects();
+
+    long getDeletes();
+
+    long getDeleteMisses();
+
+    long getLookups();
+
+    long getLookupMisses();
+
+    long getSearches();
+
+    long getBatches();
+
+    // Latencies
+    double getLookupMeanMicros();
+
+    double getLookupP99Micros();
+
+    double getInsertMeanMicros();
+
+    double getInsertP99Micros();
+
+    double getDeleteP99Micros();
+
+    double getSearchP99Micros();
+
+    double getBatchP99Micros();
+
+    /** Returns the full text dump (see RegistryMetrics.dump). */
+    String dump();
+}
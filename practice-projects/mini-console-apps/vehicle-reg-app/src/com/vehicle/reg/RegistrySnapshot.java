@@ -0,0 +1,150 @@
+package com.vehicle.reg;
+
+import java.lang.ref.Cleaner;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * -----------------------------------------------------------------------------
+ * RegistrySnapshot.java
+ *
+ * A point-in-time, read-only view of the registry, returned by
+ * VehicleManager.snapshot(). It holds exactly the vehicles registered at
+ * one version of the registry, however long it is read for: vehicles
+ * added or deleted afterwards are not seen, and a change is never seen
+ * half applied.
+ *
+ * Taking a snapshot costs about the same at any fleet size (the vehicle
+ * columns are shared, not copied) and reading it takes no lock, so long
+ * reports and exports never hold up registrations. While a snapshot is
+ * open the registry copies data it would otherwise overwrite, so close
+ * snapshots when done:
+ *
+ *   try (RegistrySnapshot snapshot = manager.snapshot()) {
+ *       for (Car car : snapshot) { ... }
+ *   }
+ *
+ * A snapshot that is never closed is released once it is garbage
+ * collected. A snapshot may be read by one thread at a time.
+ * -----------------------------------------------------------------------------
+ */
+public class RegistrySnapshot implements Iterable<Car>, AutoCloseable {
+
+    // Releases snapshots that were dropped without being closed
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final CarStore store;
+    private final Cleaner.Cleanable release;
+    private volatile boolean closed;
+
+    RegistrySnapshot(CarStore store) {
+        this.store = store;
+        this.release = CLEANER.register(this, store::release);
+    }
+
+    /**
+     * Returns the registry version this snapshot shows: the number of adds
+     * and deletes made before it was taken. Two snapshots with the same
+     * version hold the same vehicles.
+     */
+    public long getVersion() {
+        return store.version();
+    }
+
+    /** Returns the number of vehicles in the snapshot. */
+    public int size() {
+        return store.size();
+    }
+
+    /**
+     * Iterates over the vehicles in registration order, as new Car objects.
+     */
+    @Override
+    public Iterator<Car> iterator() {
+        checkOpen();
+        return new Iterator<Car>() {
+            private int slot = nextLive(0);
+
+            @Override
+            public boolean hasNext() {
+                return slot < store.slotCount();
+            }
+
+            @Override
+            public Car next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                checkOpen();
+                Car car = store.get(slot);
+                slot = nextLive(slot + 1);
+                return car;
+            }
+        };
+    }
+
+    /**
+     * Visits every vehicle in registration order without building a list.
+     * The same Car instance is reused for each call, so copy its values
+     * if they are needed after the callback returns.
+     */
+    public void forEachCar(Consumer<Car> action) {
+        checkOpen();
+        Car view = new Car();
+        for (int slot = 0; slot < store.slotCount(); slot++) {
+            if (store.isLive(slot)) {
+                action.accept(store.read(slot, view));
+            }
+        }
+    }
+
+    /**
+     * Returns every vehicle as a read-only list of new Car objects.
+     */
+    public List<Car> toList() {
+        List<Car> cars = new ArrayList<>(store.size());
+        for (Car car : this) {
+            cars.add(car);
+        }
+        return Collections.unmodifiableList(cars);
+    }
+
+    /**
+     * Releases the snapshot. Reading it afterwards throws
+     * IllegalStateException. Closing twice does nothing.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        release.clean();
+    }
+
+    /**
+     * Returns the frozen store behind the snapshot, for package code that
+     * reads the columns directly.
+     */
+    CarStore store() {
+        checkOpen();
+        return store;
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    private int nextLive(int from) {
+        int slot = from;
+        while (slot < store.slotCount() && !store.isLive(slot)) {
+            slot++;
+        }
+        return slot;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Snapshot has been closed");
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.vehicle.reg;
+
+import java.util.TreeMap;
+
+/**
+ * -----------------------------------------------------------------------------
+ * RunningStats.java
+ *
+ * Fleet aggregates kept up to date as vehicles are added and deleted, so
+ * the stats screens never have to re-read the whole registry.
+ *
+ * Mileage is summed in a long so large fleets cannot overflow. Oldest and
+ * newest year come from a per-year histogram: deleting the only vehicle of
+ * the oldest year simply drops that year, and the next one takes over.
+ *
+ * Not thread-safe; VehicleManager updates it under its write lock.
+ * -----------------------------------------------------------------------------
+ */
+class RunningStats {
+
+    private int total;
+    private long mileageSum;
+
+    // Manufacture year -> number of vehicles from that year
+    private final TreeMap<Integer, Integer> yearCounts = new TreeMap<>();
+
+    void add(int year, int mileage) {
+        total++;
+        mileageSum += mileage;
+        yearCounts.merge(year, 1, Integer::sum);
+    }
+
+    void remove(int year, int mileage) {
+        total--;
+        mileageSum -= mileage;
+        yearCounts.computeIfPresent(year, (y, count) -> count == 1 ? null : count - 1);
+    }
+
+    FleetStats snapshot() {
+        if (total == 0) {
+            return new FleetStats(0, 0, 0, 0);
+        }
+        return new FleetStats(total, mileageSum, yearCounts.firstKey(), yearCounts.lastKey());
+    }
+}
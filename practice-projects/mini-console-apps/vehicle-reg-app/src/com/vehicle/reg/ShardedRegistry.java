@@ -0,0 +1,423 @@
+package com.vehicle.reg;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * -----------------------------------------------------------------------------
+ * ShardedRegistry.java
+ *
+ * Client for a registry split across several shard processes, each a
+ * VehicleHttpServer started with --shard (see LocalShardCluster for
+ * running them on one machine). Together the shards hold more vehicles
+ * and serve more lookups than one VehicleManager heap can.
+ *
+ * Every vehicle lives on the shard that owns its normalized VIN on a
+ * HashRing, so VIN uniqueness is enforced by that shard alone. Plates are
+ * indexed separately: each plate is claimed for a VIN in the PlateDirectory
+ * of the shard that owns the plate's hash before the vehicle is stored,
+ * which keeps plates unique across all shards, exactly as addCar() does
+ * on a single registry. A plate lookup asks the plate's shard for the VIN
+ * and then reads the vehicle from the VIN's shard.
+ *
+ * An add that fails part-way (a shard unreachable between the claim and
+ * the store) can leave a claim behind. It holds up that plate only until
+ * it is CLAIM_LEASE_MILLIS old and its VIN is not registered with the
+ * plate; the next add of the plate then takes it over.
+ *
+ * The order of the shard list decides which shard owns which keys, so it
+ * must stay the same between runs; addresses may change. Vehicles are not
+ * moved when shards are added. Thread-safe.
+ * -----------------------------------------------------------------------------
+ */
+public class ShardedRegistry {
+
+    /** Age after which an unused plate claim may be taken over */
+    public static final long CLAIM_LEASE_MILLIS = 30_000;
+
+    // Vehicles fetched per request when walking a shard
+    private static final int PAGE = 10_000;
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final List<URI> shards;
+    private final HashRing ring;
+    private final HttpClient client;
+
+    /**
+     * @param shards base URIs of the shards (e.g. http://127.0.0.1:9001),
+     *               always in the same order
+     */
+    public ShardedRegistry(List<URI> shards) {
+        this.shards = List.copyOf(shards);
+        this.ring = new HashRing(shards.size());
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(TIMEOUT)
+                .build();
+    }
+
+    /** Returns the number of shards. */
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /** Returns the shard (0-based) that stores the vehicle with this VIN. */
+    public int shardOfVin(String vin) {
+        return ring.shardFor(vin);
+    }
+
+    // =======================
+    // Registry operations
+    // =======================
+
+    /**
+     * Registers a vehicle if its VIN and plate are unique across all shards.
+     *
+     * @return true if added, false if the VIN or plate is already taken
+     * @throws IllegalArgumentException if the vehicle fails validation
+     * @throws UncheckedIOException     if a shard cannot be reached
+     */
+    public boolean addCar(Car car) {
+        String problem = VehicleValidator.findProblem(car);
+        if (problem != null) {
+            throw new IllegalArgumentException(problem);
+        }
+        String vin = normalize(car.getVin());
+        String plate = normalize(car.getPlateNumber());
+        int plateShard = ring.shardFor(plate);
+
+        Response claim = claimPlate(plateShard, plate, vin, null);
+        if (claim.status == 409) {
+            Map<String, String> holder = VehicleHttpServer.parseJsonObject(claim.body);
+            String holderVin = holder.get("vin");
+            if (Long.parseLong(holder.get("ageMillis")) < CLAIM_LEASE_MILLIS || holdsPlate(holderVin, plate)) {
+                return false; // plate in use, or being registered right now
+            }
+            claim = claimPlate(plateShard, plate, vin, holderVin); // take over the stale claim
+            if (claim.status == 409) {
+                return false;
+            }
+        }
+        boolean newClaim = claim.status == 201;
+
+        Response added = call(ring.shardFor(vin), "POST", "/vehicles", toJson(car, vin, plate));
+        if (added.status == 201) {
+            return true;
+        }
+        // Keep the claim if it belongs to an existing registration of this VIN
+        if (newClaim && !holdsPlate(vin, plate)) {
+            releasePlate(plateShard, plate, vin);
+        }
+        if (added.status == 409) {
+            return false;
+        }
+        throw failure(ring.shardFor(vin), added);
+    }
+
+    /**
+     * Looks up a vehicle by VIN or plate number (case-insensitive).
+     *
+     * @return the vehicle, or null if neither matches
+     */
+    public Car findCar(String query) {
+        if (query == null || query.trim().isEmpty()) {
+            return null;
+        }
+        String key = normalize(query);
+        if (key.length() == CarStore.VIN_WIDTH) {
+            Car car = getByVin(key);
+            if (car != null) {
+                return car;
+            }
+        }
+        String vin = plateHolder(key);
+        if (vin == null) {
+            return null;
+        }
+        Car car = getByVin(vin);
+        return car != null && key.equalsIgnoreCase(car.getPlateNumber()) ? car : null;
+    }
+
+    /** Returns true if a vehicle with this VIN is registered on any shard. */
+    public boolean containsVin(String vin) {
+        return vin != null && getByVin(normalize(vin)) != null;
+    }
+
+    /** Returns true if a vehicle with this plate is registered on any shard. */
+    public boolean containsPlate(String plate) {
+        if (plate == null || plate.trim().isEmpty()) {
+            return false;
+        }
+        String key = normalize(plate);
+        String vin = plateHolder(key);
+        return vin != null && holdsPlate(vin, key);
+    }
+
+    /**
+     * Deletes a vehicle by VIN and frees its plate.
+     *
+     * @return true if removed, false if not registered
+     */
+    public boolean deleteCar(String vin) {
+        String key = normalize(vin);
+        Car car = getByVin(key);
+        if (car == null) {
+            return false;
+        }
+        Response deleted = call(ring.shardFor(key), "DELETE", "/vehicles/" + encode(key), null);
+        if (deleted.status == 404) {
+            return false;
+        }
+        if (deleted.status != 204) {
+            throw failure(ring.shardFor(key), deleted);
+        }
+        String plate = normalize(car.getPlateNumber());
+        releasePlate(ring.shardFor(plate), plate, key);
+        return true;
+    }
+
+    /** Returns the number of vehicles on all shards together. */
+    public long size() {
+        long total = 0;
+        for (int count : shardSizes()) {
+            total += count;
+        }
+        return total;
+    }
+
+    /** Returns the number of vehicles on each shard. */
+    public int[] shardSizes() {
+        int[] sizes = new int[shards.size()];
+        for (int shard = 0; shard < sizes.length; shard++) {
+            Response stats = call(shard, "GET", "/stats", null);
+            if (stats.status != 200) {
+                throw failure(shard, stats);
+            }
+            sizes[shard] = Integer.parseInt(VehicleHttpServer.parseJsonObject(stats.body).get("total"));
+        }
+        return sizes;
+    }
+
+    /**
+     * Visits every vehicle, shard by shard and in VIN order within a shard,
+     * fetching a page at a time.
+     */
+    public void forEachCar(Consumer<Car> action) {
+        for (int shard = 0; shard < shards.size(); shard++) {
+            String after = "";
+            while (after != null) {
+                Response page = call(shard, "GET", "/vehicles?after=" + encode(after) + "&limit=" + PAGE, null);
+                if (page.status != 200) {
+                    throw failure(shard, page);
+                }
+                for (String object : splitJsonArray(page.body)) {
+                    action.accept(toCar(VehicleHttpServer.parseJsonObject(object)));
+                }
+                after = page.nextAfter;
+            }
+        }
+    }
+
+    /**
+     * Claims the plate of every stored vehicle again. Shards keep their
+     * claims across restarts, so this is only needed for data registered
+     * before claims were logged, or after a shard's plates.log was lost.
+     *
+     * @return vehicles whose plate is claimed by a different VIN (should be
+     *         empty; anything listed was registered while claims were missing)
+     */
+    public List<Car> rebuildPlateDirectory() {
+        List<Car> conflicts = new ArrayList<>();
+        forEachCar(car -> {
+            String plate = normalize(car.getPlateNumber());
+            if (claimPlate(ring.shardFor(plate), plate, car.getVin(), null).status == 409) {
+                conflicts.add(car);
+            }
+        });
+        return conflicts;
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    /** Status, body and paging cursor of one shard response. */
+    private static final class Response {
+
+        final int status;
+        final String body;
+        final String nextAfter;
+
+        Response(int status, String body, String nextAfter) {
+            this.status = status;
+            this.body = body;
+            this.nextAfter = nextAfter;
+        }
+    }
+
+    private Car getByVin(String vin) {
+        int shard = ring.shardFor(vin);
+        Response found = call(shard, "GET", "/vehicles/" + encode(vin), null);
+        if (found.status == 404) {
+            return null;
+        }
+        if (found.status != 200) {
+            throw failure(shard, found);
+        }
+        Car car = toCar(VehicleHttpServer.parseJsonObject(found.body));
+        return vin.equalsIgnoreCase(car.getVin()) ? car : null; // shards also match plates
+    }
+
+    /** Returns true if the VIN is registered with exactly this plate. */
+    private boolean holdsPlate(String vin, String plate) {
+        Car car = getByVin(vin);
+        return car != null && plate.equalsIgnoreCase(car.getPlateNumber());
+    }
+
+    /** Returns the VIN holding the plate's claim, or null if unclaimed. */
+    private String plateHolder(String plate) {
+        int shard = ring.shardFor(plate);
+        Response claim = call(shard, "GET", "/plates/" + encode(plate), null);
+        if (claim.status == 404) {
+            return null;
+        }
+        if (claim.status != 200) {
+            throw failure(shard, claim);
+        }
+        return VehicleHttpServer.parseJsonObject(claim.body).get("vin");
+    }
+
+    private Response claimPlate(int shard, String plate, String vin, String replacing) {
+        String query = "?vin=" + encode(vin) + (replacing == null ? "" : "&replace=" + encode(replacing));
+        Response claim = call(shard, "PUT", "/plates/" + encode(plate) + query, null);
+        if (claim.status != 200 && claim.status != 201 && claim.status != 409) {
+            throw failure(shard, claim);
+        }
+        return claim;
+    }
+
+    private void releasePlate(int shard, String plate, String vin) {
+        call(shard, "DELETE", "/plates/" + encode(plate) + "?vin=" + encode(vin), null);
+    }
+
+    private Response call(int shard, String method, String path, String body) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(shards.get(shard).resolve(path)).timeout(TIMEOUT);
+        if (body != null) {
+            request.header("Content-Type", "application/json")
+                   .method(method, HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8));
+        } else {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+        try {
+            HttpResponse<String> response = client.send(request.build(),
+                    HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            return new Response(response.statusCode(), response.body(),
+                    response.headers().firstValue("X-Next-After").orElse(null));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Shard " + shard + " (" + shards.get(shard) + ") unreachable", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted calling shard " + shard));
+        }
+    }
+
+    /**
+     * Turns an unexpected shard response into an exception: 400 becomes
+     * IllegalArgumentException, anything else IllegalStateException.
+     */
+    private RuntimeException failure(int shard, Response response) {
+        String message = response.body;
+        try {
+            message = VehicleHttpServer.parseJsonObject(response.body).getOrDefault("error", response.body);
+        } catch (IllegalArgumentException e) {
+            // not a JSON error body; report it as is
+        }
+        if (response.status == 400) {
+            return new IllegalArgumentException(message);
+        }
+        return new IllegalStateException("Shard " + shard + " returned " + response.status + ": " + message);
+    }
+
+    private static String toJson(Car car, String vin, String plate) {
+        return "{\"make\":" + quote(car.getMake()) +
+                ",\"model\":" + quote(car.getModel()) +
+                ",\"vin\":" + quote(vin) +
+                ",\"plate\":" + quote(plate) +
+                ",\"mileage\":" + car.getMileage() +
+                ",\"year\":" + car.getYear() + "}";
+    }
+
+    private static Car toCar(Map<String, String> fields) {
+        Car car = new Car();
+        car.setMake(fields.get("make"));
+        car.setModel(fields.get("model"));
+        car.setVin(fields.get("vin"));
+        car.setPlateNumber(fields.get("plate"));
+        car.setMileage(Integer.parseInt(fields.get("mileage")));
+        car.setYear(Integer.parseInt(fields.get("year")));
+        return car;
+    }
+
+    private static String quote(String text) {
+        StringBuilder sb = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Splits a JSON array of flat objects into the objects' text, skipping
+     * braces inside strings.
+     */
+    private static List<String> splitJsonArray(String json) {
+        List<String> objects = new ArrayList<>();
+        int start = -1;
+        boolean inString = false;
+        for (int i = 0; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{') {
+                start = i;
+            } else if (c == '}' && start >= 0) {
+                objects.add(json.substring(start, i + 1));
+                start = -1;
+            }
+        }
+        return objects;
+    }
+
+    private static String encode(String text) {
+        return URLEncoder.encode(text, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    private static String normalize(String text) {
+        return text.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,84 @@
+package com.vehicle.reg;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * -----------------------------------------------------------------------------
+ * StringDictionary.java
+ *
+ * Maps repeated text values, such as vehicle makes and models, to small
+ * integer codes. Each distinct value is stored once; vehicles keep only the
+ * code, and filters or group-bys can compare codes instead of strings.
+ *
+ * Values are canonicalised case-insensitively: "toyota" and "Toyota" share
+ * one code, and the spelling seen first is the one returned by decode().
+ *
+ * Codes are never reused. Not thread-safe; callers synchronise access.
+ * -----------------------------------------------------------------------------
+ */
+class StringDictionary {
+
+    // Upper-cased value -> code
+    private final Map<String, Integer> codes = new HashMap<>();
+
+    // Code -> canonical spelling
+    private final List<String> values = new ArrayList<>();
+
+    /**
+     * Returns the code for a value, assigning a new one if it is unseen.
+     * A null value is treated as an empty string.
+     */
+    int encode(String value) {
+        String text = value == null ? "" : value.trim();
+        Integer code = codes.get(key(text));
+        if (code == null) {
+            code = values.size();
+            codes.put(key(text), code);
+            values.add(text);
+        }
+        return code;
+    }
+
+    /**
+     * Returns the code for a value without adding it.
+     *
+     * @return the code, or -1 if the value has never been encoded
+     */
+    int codeOf(String value) {
+        Integer code = codes.get(key(value == null ? "" : value.trim()));
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * Returns the canonical value for a code.
+     */
+    String decode(int code) {
+        return values.get(code);
+    }
+
+    /**
+     * Returns an independent copy, e.g. for a snapshot that must not see
+     * values added later.
+     */
+    StringDictionary copy() {
+        StringDictionary copy = new StringDictionary();
+        copy.codes.putAll(codes);
+        copy.values.addAll(values);
+        return copy;
+    }
+
+    /**
+     * Returns the number of distinct values.
+     */
+    int size() {
+        return values.size();
+    }
+
+    private static String key(String text) {
+        return text.toUpperCase(Locale.ROOT);
+    }
+}
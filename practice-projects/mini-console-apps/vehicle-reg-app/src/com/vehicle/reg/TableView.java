@@ -1,56 +1,128 @@
 package com.vehicle.reg;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
-import java.util.List;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 
 /**
  * -----------------------------------------------------------------------------
  * TableView.java
  * Purpose: Displays all registered vehicles in a clean JTable
  * Author: Ndzalama Tihuhlu
+ *
+ * Rows come from a VehicleTableModel, which reads vehicles on demand, so
+ * the dialog opens immediately even for very large registries. Click a
+ * column header to sort (click again to reverse); type in the filter box
+ * to show only matching vehicles. Both run in the background.
+ *
+ * While the dialog is open, vehicles registered or deleted elsewhere (for
+ * example through the HTTP server) appear and disappear in the table.
  * -----------------------------------------------------------------------------
  */
 public class TableView extends JDialog {
 
+    // Delay after the last keystroke before the filter is applied (ms)
+    private static final int FILTER_DELAY = 300;
+
     public TableView(JFrame parent, VehicleManager manager) {
         super(parent, "Registered Vehicles", true);
-        setSize(700, 300);
+        setSize(700, 400);
         setLocationRelativeTo(parent);
         setLayout(new BorderLayout());
 
-        // Column headers for the vehicle table
-        String[] columns = {"Make", "Model", "VIN", "Plate", "Mileage (km)", "Year"};
-
-        // Fetch list of vehicles and convert to row format
-        List<Car> cars = manager.getAllCars();
-        String[][] rows = new String[cars.size()][6];
-
-        for (int i = 0; i < cars.size(); i++) {
-            Car c = cars.get(i);
-            rows[i][0] = c.getMake();
-            rows[i][1] = c.getModel();
-            rows[i][2] = c.getVin();
-            rows[i][3] = c.getPlateNumber();
-            rows[i][4] = String.valueOf(c.getMileage());
-            rows[i][5] = String.valueOf(c.getYear());
-        }
-
-        // Table model and table creation
-        DefaultTableModel model = new DefaultTableModel(rows, columns);
+        // Table backed by the registry, loaded in the background
+        VehicleTableModel model = new VehicleTableModel(manager);
         JTable table = new JTable(model);
+        table.setAutoCreateColumnsFromModel(false);
+
+        // Filter box above the table
+        JTextField filterField = new JTextField(20);
+        JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        topPanel.add(new JLabel("Filter:"));
+        topPanel.add(filterField);
+        add(topPanel, BorderLayout.NORTH);
 
         // Add table to scrollable pane
         JScrollPane scrollPane = new JScrollPane(table);
         add(scrollPane, BorderLayout.CENTER);
 
-        // Close button below the table
+        // Row count and close button below the table
+        JLabel statusLabel = new JLabel("Loading...");
         JButton closeBtn = new JButton("Close");
         closeBtn.addActionListener(e -> dispose());
 
         JPanel bottomPanel = new JPanel();
+        bottomPanel.add(statusLabel);
         bottomPanel.add(closeBtn);
         add(bottomPanel, BorderLayout.SOUTH);
+
+        model.setOnLoaded(() -> {
+            statusLabel.setText(model.getRowCount() + " vehicle(s)");
+            for (int i = 0; i < VehicleTableModel.COLUMNS.length; i++) {
+                String header = VehicleTableModel.COLUMNS[i];
+                if (i == model.getSortColumn()) {
+                    header += model.isAscending() ? " ▲" : " ▼";
+                }
+                table.getColumnModel().getColumn(i).setHeaderValue(header);
+            }
+            table.getTableHeader().repaint();
+        });
+
+        // Clicking a header sorts by that column; clicking again reverses
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = table.convertColumnIndexToModel(table.columnAtPoint(e.getPoint()));
+                if (column < 0) {
+                    return;
+                }
+                boolean ascending = column != model.getSortColumn() || !model.isAscending();
+                statusLabel.setText("Sorting...");
+                model.load(model.getFilter(), column, ascending);
+            }
+        });
+
+        // Filter once typing pauses, rather than on every keystroke
+        Timer filterTimer = new Timer(FILTER_DELAY, e -> {
+            statusLabel.setText("Filtering...");
+            model.load(filterField.getText(), model.getSortColumn(), model.isAscending());
+        });
+        filterTimer.setRepeats(false);
+        filterField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                filterTimer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                filterTimer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                filterTimer.restart();
+            }
+        });
+
+        // Follow registry changes until the dialog is closed, then release
+        // the model's snapshot
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        EdtEventBatcher changes = new EdtEventBatcher(model);
+        manager.addListener(changes);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                manager.removeListener(changes);
+                model.close();
+            }
+        });
+
+        model.load("", -1, true);
     }
 }
@@ -0,0 +1,56 @@
+package com.vehicle.reg;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * -----------------------------------------------------------------------------
+ * TaskProgress.java
+ *
+ * Progress and cancel flag shared between a long-running registry task
+ * (import, export) and whoever is watching it, usually a ProgressDialog.
+ *
+ * Cancelling is cooperative: the task checks the flag between chunks of
+ * work and stops there. Worker threads are never interrupted, because an
+ * interrupt during a journal write would close the journal's FileChannel.
+ * -----------------------------------------------------------------------------
+ */
+public class TaskProgress {
+
+    private volatile double fraction = -1;
+    private volatile boolean cancelled;
+
+    /**
+     * Records how much of the work is done.
+     *
+     * @param fraction 0.0 to 1.0
+     */
+    public void report(double fraction) {
+        this.fraction = Math.max(0, Math.min(1, fraction));
+    }
+
+    /** Returns the fraction done, or -1 if nothing has been reported yet. */
+    public double getFraction() {
+        return fraction;
+    }
+
+    /** Asks the task to stop at its next check. */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /** Returns true once cancel() has been called. */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Called by the task between chunks of work.
+     *
+     * @throws CancellationException if cancel() has been called
+     */
+    public void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Cancelled by user");
+        }
+    }
+}
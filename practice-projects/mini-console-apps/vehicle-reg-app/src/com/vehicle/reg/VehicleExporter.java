@@ -0,0 +1,220 @@
+package com.vehicle.reg;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * -----------------------------------------------------------------------------
+ * VehicleExporter.java
+ *
+ * Streams the whole registry to a file as CSV (same columns the importer
+ * reads) or as JSON lines (one object per vehicle).
+ *
+ * Records are encoded straight from the store's columns into one reusable
+ * direct buffer that is written through a FileChannel: VIN and plate bytes
+ * are copied as-is, numbers are written digit by digit, and each distinct
+ * make/model is encoded only once. No String is built per vehicle.
+ *
+ * An optional TaskProgress is updated each time the buffer is written out,
+ * and a cancel stops the export there (the file is left incomplete).
+ * -----------------------------------------------------------------------------
+ */
+public class VehicleExporter {
+
+    /** Supported output formats */
+    public enum Format {
+        /** make,model,vin,plate,mileage,year with a header line */
+        CSV,
+        /** {"make":...,"model":...,"vin":...,"plate":...,"mileage":...,"year":...} per line */
+        JSON_LINES
+    }
+
+    // Longest fixed part of a record, excluding make and model
+    private static final int MAX_FIXED_RECORD = 128;
+
+    private final VehicleManager manager;
+    private TaskProgress progress = new TaskProgress();
+
+    public VehicleExporter(VehicleManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * Reports progress to, and checks for cancellation from, the given tracker.
+     */
+    public VehicleExporter setProgress(TaskProgress progress) {
+        this.progress = progress;
+        return this;
+    }
+
+    /**
+     * Picks the format from a file name: ".jsonl" or ".json" means
+     * JSON lines, anything else CSV.
+     */
+    public static Format formatFor(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".jsonl") || name.endsWith(".json") ? Format.JSON_LINES : Format.CSV;
+    }
+
+    /**
+     * Writes every registered vehicle to the file, replacing its contents.
+     * The file holds the registry as it was when the export started; it is
+     * written from a snapshot, so registrations carry on meanwhile.
+     *
+     * @return the number of vehicles written
+     * @throws IOException if the file cannot be written
+     * @throws java.util.concurrent.CancellationException if the progress
+     *         tracker was cancelled
+     */
+    public long export(Path file, Format format) throws IOException {
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long written;
+            try (RegistrySnapshot snapshot = manager.snapshot()) {
+                written = writeAll(snapshot.store(), out, format);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.force(false);
+            return written;
+        }
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    private long writeAll(CarStore store, FileChannel out, Format format) {
+        ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20);
+        boolean json = format == Format.JSON_LINES;
+
+        // Encoded (and escaped) make/model bytes, filled on first use
+        byte[][] makes = new byte[store.makeCount()][];
+        byte[][] models = new byte[store.modelCount()][];
+
+        try {
+            if (!json) {
+                buf.put("make,model,vin,plate,mileage,year\n".getBytes(StandardCharsets.US_ASCII));
+            }
+            long count = 0;
+            for (int slot = 0; slot < store.slotCount(); slot++) {
+                if (!store.isLive(slot)) {
+                    continue;
+                }
+                int makeCode = store.makeCode(slot);
+                int modelCode = store.modelCode(slot);
+                if (makes[makeCode] == null) {
+                    makes[makeCode] = encodeText(store.decodeMake(makeCode), json);
+                }
+                if (models[modelCode] == null) {
+                    models[modelCode] = encodeText(store.decodeModel(modelCode), json);
+                }
+                int needed = MAX_FIXED_RECORD + makes[makeCode].length + models[modelCode].length;
+                if (buf.remaining() < needed) {
+                    drain(out, buf);
+                    progress.report((double) count / store.size());
+                    progress.checkCancelled();
+                    if (buf.capacity() < needed) {
+                        buf = ByteBuffer.allocate(needed); // unusually long make/model
+                    }
+                }
+
+                if (json) {
+                    ascii(buf, "{\"make\":").put(makes[makeCode]);
+                    ascii(buf, ",\"model\":").put(models[modelCode]);
+                    ascii(buf, ",\"vin\":\"");
+                    store.copyVin(slot, buf);
+                    ascii(buf, "\",\"plate\":\"");
+                    store.copyPlate(slot, buf);
+                    ascii(buf, "\",\"mileage\":");
+                    putInt(buf, store.mileage(slot));
+                    ascii(buf, ",\"year\":");
+                    putInt(buf, store.year(slot));
+                    buf.put((byte) '}');
+                } else {
+                    buf.put(makes[makeCode]).put((byte) ',');
+                    buf.put(models[modelCode]).put((byte) ',');
+                    store.copyVin(slot, buf);
+                    buf.put((byte) ',');
+                    store.copyPlate(slot, buf);
+                    buf.put((byte) ',');
+                    putInt(buf, store.mileage(slot));
+                    buf.put((byte) ',');
+                    putInt(buf, store.year(slot));
+                }
+                buf.put((byte) '\n');
+                count++;
+            }
+            drain(out, buf);
+            progress.report(1);
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void drain(FileChannel out, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            out.write(buf);
+        }
+        buf.clear();
+    }
+
+    private static ByteBuffer ascii(ByteBuffer buf, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            buf.put((byte) text.charAt(i));
+        }
+        return buf;
+    }
+
+    /**
+     * Writes an int in decimal without creating a String.
+     */
+    private static void putInt(ByteBuffer buf, int value) {
+        long v = value;
+        if (v < 0) {
+            buf.put((byte) '-');
+            v = -v;
+        }
+        long divisor = 1;
+        while (divisor * 10 <= v) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            buf.put((byte) ('0' + (v / divisor) % 10));
+        }
+    }
+
+    /**
+     * Encodes a make or model once: as a quoted JSON string, or as a CSV
+     * field quoted only when it contains a comma, quote or line break.
+     */
+    private static byte[] encodeText(String value, boolean json) {
+        String text = value == null ? "" : value;
+        StringBuilder sb = new StringBuilder(text.length() + 2);
+        if (json) {
+            sb.append('"');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '"' || c == '\\') {
+                    sb.append('\\').append(c);
+                } else if (c < 0x20) {
+                    sb.append(String.format("\\u%04x", (int) c));
+                } else {
+                    sb.append(c);
+                }
+            }
+            sb.append('"');
+        } else if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            sb.append('"').append(text.replace("\"", "\"\"")).append('"');
+        } else {
+            sb.append(text);
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
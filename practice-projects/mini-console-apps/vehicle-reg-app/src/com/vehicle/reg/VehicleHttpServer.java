@@ -0,0 +1,665 @@
+package com.vehicle.reg;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * -----------------------------------------------------------------------------
+ * VehicleHttpServer.java
+ *
+ * Embedded HTTP/JSON API over a VehicleManager, so other systems can
+ * register and look up vehicles without the console or Swing screens.
+ *
+ *   POST   /vehicles                 register; body is a JSON object with
+ *                                    make, model, vin, plate, mileage, year
+ *                                    -> 201, 400 (invalid) or 409 (duplicate)
+ *   GET    /vehicles/{vinOrPlate}    exact lookup -> 200 or 404
+ *   GET    /vehicles?q=text&limit=n  partial / near-miss search
+ *   GET    /vehicles?yearFrom=&yearTo=&minMileage=&maxMileage=&make=&model=&limit=
+ *                                    filtered listing (VehicleQuery); with no
+ *                                    parameters, the first `limit` vehicles
+ *   GET    /vehicles?after=vin&limit=n
+ *                                    all vehicles in VIN order, one page at a
+ *                                    time (use after= empty for the first);
+ *                                    X-Next-After gives the next page's cursor
+ *   DELETE /vehicles/{vin}           -> 204 or 404
+ *   GET    /stats                    fleet totals
+ *   GET    /metrics                  operation counters and latencies
+ *                                    (plain text, see RegistryMetrics)
+ *
+ * When run as a shard of a ShardedRegistry (enablePlateDirectory(dataDir), or
+ * --shard on the command line) it also serves this node's PlateDirectory:
+ *
+ *   PUT    /plates/{plate}?vin=v[&replace=old]
+ *                                    claim -> 201 (new), 200 (already held by
+ *                                    v) or 409 {"vin","ageMillis"} (taken)
+ *   GET    /plates/{plate}           -> 200 {"plate","vin","ageMillis"} or 404
+ *   DELETE /plates/{plate}?vin=v     release if held by v -> 204 or 404
+ *
+ * Claims are logged in the data directory (plates.log) and forced to disk
+ * before the reply, so they survive a restart of the shard.
+ *
+ * A 201 for a registration or a 204 for a delete is sent only once the
+ * change is on disk (VehicleManager.flush()). Requests arriving together
+ * share one disk sync, as in the journal's group commit.
+ *
+ * The API has no authentication, so it listens on the loopback interface
+ * only unless another address is given explicitly (the constructor taking
+ * an InetSocketAddress, or --bind on the command line).
+ *
+ * The JDK server writes headers and body separately, so without
+ * TCP_NODELAY each small response waits ~40 ms for a delayed ACK. main()
+ * turns it on; applications embedding the server should launch with
+ * -Dsun.net.httpserver.nodelay=true (the setting is JVM-wide and read
+ * when the first HttpServer is created, so it is not changed from here).
+ *
+ * Each request runs on its own virtual thread when the JVM supports them
+ * (Java 21+), otherwise on a fixed pool of platform threads. Handlers only
+ * take the manager's read or write lock briefly, so lookups scale with
+ * the number of cores.
+ * -----------------------------------------------------------------------------
+ */
+public class VehicleHttpServer {
+
+    /** Default port when none is given on the command line */
+    public static final int DEFAULT_PORT = 8080;
+
+    // Listing size when the request gives no limit, and the largest allowed
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 10_000;
+
+    // Largest request body accepted (bytes)
+    private static final int MAX_BODY = 64 * 1024;
+
+    private final VehicleManager manager;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private PlateDirectory plates;
+
+    /**
+     * Creates a server on the given loopback port, reachable from this
+     * machine only; call start() to accept requests.
+     *
+     * @param port TCP port, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public VehicleHttpServer(VehicleManager manager, int port) throws IOException {
+        this(manager, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * Creates a server on the given address, e.g. a LAN interface or the
+     * wildcard address to serve other machines. Anyone who can reach it can
+     * register and delete vehicles.
+     *
+     * @throws IOException if the address cannot be bound
+     */
+    public VehicleHttpServer(VehicleManager manager, InetSocketAddress address) throws IOException {
+        this.manager = manager;
+        this.server = HttpServer.create(address, 0);
+        this.executor = newExecutor();
+        server.setExecutor(executor);
+        server.createContext("/vehicles", this::handleVehicles);
+        server.createContext("/stats", this::handleStats);
+        server.createContext("/metrics", this::handleMetrics);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Serves a plate directory under /plates, making this server usable as
+     * a shard of a ShardedRegistry. Call before start(). Claims are logged
+     * in the data directory (normally the registry's own), so they survive
+     * a restart.
+     *
+     * @throws IOException if the claim log cannot be read or opened
+     */
+    public void enablePlateDirectory(Path dataDir) throws IOException {
+        if (plates == null) {
+            plates = new PlateDirectory(dataDir);
+            server.createContext("/plates", this::handlePlates);
+        }
+    }
+
+    /** Returns the port the server is listening on. */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /** Returns the address the server is listening on. */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Stops accepting requests, waiting up to a second for running ones.
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        if (plates != null) {
+            try {
+                executor.awaitTermination(1, TimeUnit.SECONDS);
+                plates.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                System.err.println("Could not close plate claims: " + e.getMessage());
+            }
+        }
+    }
+
+    // =======================
+    // Handlers
+    // =======================
+
+    private void handleVehicles(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String key = subPath(path, "/vehicles");
+            String method = exchange.getRequestMethod();
+
+            if (key == null) {
+                sendError(exchange, 404, "Not found: " + path);
+            } else if (method.equals("POST") && key.isEmpty()) {
+                register(exchange);
+            } else if (method.equals("GET") && key.isEmpty()) {
+                list(exchange, parseQuery(exchange.getRequestURI().getRawQuery()));
+            } else if (method.equals("GET")) {
+                Car car = manager.findCar(key);
+                if (car == null) {
+                    sendError(exchange, 404, "No vehicle with VIN or plate " + key);
+                } else {
+                    send(exchange, 200, toJson(car));
+                }
+            } else if (method.equals("DELETE") && !key.isEmpty()) {
+                if (manager.deleteCar(key)) {
+                    manager.flush();
+                    send(exchange, 204, null);
+                } else {
+                    sendError(exchange, 404, "No vehicle with VIN " + key);
+                }
+            } else {
+                sendError(exchange, 405, "Unsupported: " + method + " " + path);
+            }
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            sendError(exchange, 500, e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try {
+            if (!"".equals(subPath(exchange.getRequestURI().getPath(), "/stats"))) {
+                sendError(exchange, 404, "Not found: " + exchange.getRequestURI().getPath());
+                return;
+            }
+            if (!exchange.getRequestMethod().equals("GET")) {
+                sendError(exchange, 405, "Use GET");
+                return;
+            }
+            FleetStats stats = manager.getStats();
+            StringBuilder json = new StringBuilder(128);
+            json.append("{\"total\":").append(stats.getTotal())
+                .append(",\"mileageSum\":").append(stats.getMileageSum())
+                .append(",\"averageMileage\":").append(stats.getAverageMileage());
+            if (stats.getTotal() > 0) {
+                json.append(",\"oldestYear\":").append(stats.getOldestYear())
+                    .append(",\"newestYear\":").append(stats.getNewestYear());
+            }
+            send(exchange, 200, json.append('}').toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            if (!"".equals(subPath(exchange.getRequestURI().getPath(), "/metrics"))) {
+                sendError(exchange, 404, "Not found: " + exchange.getRequestURI().getPath());
+                return;
+            }
+            if (!exchange.getRequestMethod().equals("GET")) {
+                sendError(exchange, 405, "Use GET");
+                return;
+            }
+            byte[] body = manager.getMetrics().dump().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handlePlates(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String plate = subPath(path, "/plates");
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            String method = exchange.getRequestMethod();
+            if (plate == null) {
+                sendError(exchange, 404, "Not found: " + path);
+            } else if (plate.isEmpty()) {
+                sendError(exchange, 404, "No plate given");
+            } else if (method.equals("PUT")) {
+                String vin = required(params, "vin");
+                PlateDirectory.Result result = plates.claim(plate, vin, params.get("replace"));
+                if (result == PlateDirectory.Result.TAKEN) {
+                    sendClaim(exchange, 409, plate, plates.get(plate));
+                } else {
+                    sendClaim(exchange, result == PlateDirectory.Result.CLAIMED ? 201 : 200, plate, plates.get(plate));
+                }
+            } else if (method.equals("GET")) {
+                sendClaim(exchange, 200, plate, plates.get(plate));
+            } else if (method.equals("DELETE")) {
+                if (plates.release(plate, required(params, "vin"))) {
+                    send(exchange, 204, null);
+                } else {
+                    sendError(exchange, 404, "Plate " + plate + " is not claimed by that VIN");
+                }
+            } else {
+                sendError(exchange, 405, "Unsupported: " + method + " " + path);
+            }
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (IOException e) {
+            sendError(exchange, 500, "Could not log plate claim: " + e.getMessage());
+        } catch (RuntimeException e) {
+            sendError(exchange, 500, e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Sends a plate claim, or 404 if the claim has meanwhile been released.
+     */
+    private static void sendClaim(HttpExchange exchange, int status, String plate,
+                                  PlateDirectory.Claim claim) throws IOException {
+        if (claim == null) {
+            sendError(exchange, 404, "Plate " + plate + " is not claimed");
+            return;
+        }
+        send(exchange, status, "{\"plate\":" + quote(plate.toUpperCase(Locale.ROOT))
+                + ",\"vin\":" + quote(claim.vin) + ",\"ageMillis\":" + claim.ageMillis() + "}");
+    }
+
+    private void register(HttpExchange exchange) throws IOException {
+        Map<String, String> fields = parseJsonObject(readBody(exchange));
+        Car car = new Car();
+        car.setMake(required(fields, "make"));
+        car.setModel(required(fields, "model"));
+        car.setVin(required(fields, "vin").toUpperCase(Locale.ROOT));
+        car.setPlateNumber(required(fields, "plate").toUpperCase(Locale.ROOT));
+        car.setMileage(parseInt(required(fields, "mileage"), "mileage"));
+        car.setYear(parseInt(required(fields, "year"), "year"));
+
+        String problem = VehicleValidator.findProblem(car);
+        if (problem != null) {
+            throw new IllegalArgumentException(problem);
+        }
+
+        if (manager.addCar(car)) {
+            manager.flush();
+            exchange.getResponseHeaders().set("Location", "/vehicles/" + car.getVin());
+            send(exchange, 201, toJson(car));
+        } else {
+            sendError(exchange, 409, "VIN or plate number already registered");
+        }
+    }
+
+    private void list(HttpExchange exchange, Map<String, String> params) throws IOException {
+        int limit = Math.min(MAX_LIMIT, parseInt(params.getOrDefault("limit", String.valueOf(DEFAULT_LIMIT)), "limit"));
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative");
+        }
+
+        List<Car> cars;
+        if (params.containsKey("q")) {
+            cars = manager.search(params.get("q"), limit);
+        } else if (params.containsKey("after")) {
+            VehiclePage page = manager.getPage(params.get("after"), Math.max(1, limit));
+            cars = page.getCars();
+            if (page.hasNext()) {
+                exchange.getResponseHeaders().set("X-Next-After", page.getNextCursor());
+            }
+        } else {
+            VehicleQuery query = new VehicleQuery(manager);
+            if (params.containsKey("yearFrom") || params.containsKey("yearTo")) {
+                query.yearBetween(parseInt(params.getOrDefault("yearFrom", String.valueOf(Integer.MIN_VALUE)), "yearFrom"),
+                        parseInt(params.getOrDefault("yearTo", String.valueOf(Integer.MAX_VALUE)), "yearTo"));
+            }
+            if (params.containsKey("minMileage") || params.containsKey("maxMileage")) {
+                query.mileageBetween(parseInt(params.getOrDefault("minMileage", String.valueOf(Integer.MIN_VALUE)), "minMileage"),
+                        parseInt(params.getOrDefault("maxMileage", String.valueOf(Integer.MAX_VALUE)), "maxMileage"));
+            }
+            if (params.containsKey("make")) {
+                query.make(params.get("make"));
+            }
+            if (params.containsKey("model")) {
+                query.model(params.get("model"));
+            }
+            cars = query.list(limit);
+        }
+
+        StringBuilder json = new StringBuilder(cars.size() * 128 + 2).append('[');
+        for (int i = 0; i < cars.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(toJson(cars.get(i)));
+        }
+        send(exchange, 200, json.append(']').toString());
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    /**
+     * Uses a virtual thread per request where available (Java 21+),
+     * otherwise a pool of platform threads.
+     */
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors() * 4));
+        }
+    }
+
+    /**
+     * Returns the part of the path after context + "/" ("" for the context
+     * itself), or null if the path merely starts with the same letters, such
+     * as /vehiclesX for /vehicles. HttpServer matches contexts by plain
+     * string prefix, so handlers must check this themselves.
+     */
+    private static String subPath(String path, String context) {
+        if (path.equals(context)) {
+            return "";
+        }
+        if (path.startsWith(context) && path.charAt(context.length()) == '/') {
+            return path.substring(context.length() + 1);
+        }
+        return null;
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        if (json == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, "{\"error\":" + quote(message == null ? "Internal error" : message) + "}");
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY + 1);
+            if (body.length > MAX_BODY) {
+                throw new IllegalArgumentException("Request body too large");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String toJson(Car car) {
+        return "{\"make\":" + quote(car.getMake()) +
+                ",\"model\":" + quote(car.getModel()) +
+                ",\"vin\":" + quote(car.getVin()) +
+                ",\"plate\":" + quote(car.getPlateNumber()) +
+                ",\"mileage\":" + car.getMileage() +
+                ",\"year\":" + car.getYear() + "}";
+    }
+
+    private static String quote(String text) {
+        StringBuilder sb = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.put(name, value);
+        }
+        return params;
+    }
+
+    /**
+     * Parses a flat JSON object whose values are strings, numbers, booleans
+     * or null. Nested objects and arrays are rejected.
+     *
+     * @throws IllegalArgumentException if the text is not such an object
+     */
+    static Map<String, String> parseJsonObject(String text) {
+        JsonReader reader = new JsonReader(text);
+        Map<String, String> fields = new HashMap<>();
+        reader.expect('{');
+        if (!reader.consume('}')) {
+            do {
+                String name = reader.string();
+                reader.expect(':');
+                fields.put(name, reader.value());
+            } while (reader.consume(','));
+            reader.expect('}');
+        }
+        reader.end();
+        return fields;
+    }
+
+    private static String required(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException("Missing field: " + name);
+        }
+        return value.trim();
+    }
+
+    private static int parseInt(String text, String field) {
+        try {
+            return Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + text);
+        }
+    }
+
+    /**
+     * Minimal cursor over JSON text for parseJsonObject().
+     */
+    private static class JsonReader {
+
+        private final String text;
+        private int pos;
+
+        JsonReader(String text) {
+            this.text = text;
+        }
+
+        void expect(char c) {
+            if (!consume(c)) {
+                throw new IllegalArgumentException("Malformed JSON: expected '" + c + "' at " + pos);
+            }
+        }
+
+        boolean consume(char c) {
+            skipSpace();
+            if (pos < text.length() && text.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        void end() {
+            skipSpace();
+            if (pos != text.length()) {
+                throw new IllegalArgumentException("Malformed JSON: unexpected text at " + pos);
+            }
+        }
+
+        String value() {
+            skipSpace();
+            if (pos < text.length() && text.charAt(pos) == '"') {
+                return string();
+            }
+            int start = pos;
+            while (pos < text.length() && ",} \t\r\n".indexOf(text.charAt(pos)) < 0) {
+                pos++;
+            }
+            String literal = text.substring(start, pos);
+            if (literal.isEmpty() || literal.startsWith("{") || literal.startsWith("[")) {
+                throw new IllegalArgumentException("Malformed JSON: unsupported value at " + start);
+            }
+            return literal.equals("null") ? null : literal;
+        }
+
+        String string() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (pos < text.length()) {
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (pos >= text.length()) {
+                    break;
+                }
+                char escaped = text.charAt(pos++);
+                switch (escaped) {
+                    case 'n': sb.append('\n'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u':
+                        if (pos + 4 > text.length()) {
+                            throw new IllegalArgumentException("Malformed JSON: bad \\u escape");
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw new IllegalArgumentException("Malformed JSON: bad \\u escape");
+                        }
+                        pos += 4;
+                        break;
+                    default: sb.append(escaped); // \" \\ \/
+                }
+            }
+            throw new IllegalArgumentException("Malformed JSON: unterminated string");
+        }
+
+        private void skipSpace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+    }
+
+    // =======================
+    // Entry point
+    // =======================
+
+    /**
+     * Runs the API on its own:
+     *   java com.vehicle.reg.VehicleHttpServer [--shard] [--bind host] [port] [dataDir]
+     *
+     * Without --bind only this machine can connect; --bind 0.0.0.0 serves
+     * every interface.
+     */
+    public static void main(String[] args) throws IOException {
+        boolean shard = false;
+        String bind = null;
+        int first = 0;
+        while (first < args.length && args[first].startsWith("--")) {
+            if (args[first].equals("--shard")) {
+                shard = true;
+                first++;
+            } else if (args[first].equals("--bind") && first + 1 < args.length) {
+                bind = args[first + 1];
+                first += 2;
+            } else {
+                System.err.println("Unknown option: " + args[first]);
+                System.exit(2);
+            }
+        }
+        // This process is only the API, so the JVM-wide setting is ours to
+        // make (see the class comment); it must precede the first HttpServer
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        int port = args.length > first ? Integer.parseInt(args[first]) : DEFAULT_PORT;
+        Path dataDir = args.length > first + 1 ? Paths.get(args[first + 1]) : VehicleManager.DEFAULT_DATA_DIR;
+        VehicleManager manager = new VehicleManager(dataDir);
+        manager.getMetrics().registerMBean();
+        VehicleHttpServer server = bind == null
+                ? new VehicleHttpServer(manager, port)
+                : new VehicleHttpServer(manager, new InetSocketAddress(InetAddress.getByName(bind), port));
+        if (shard) {
+            server.enablePlateDirectory(dataDir);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            try {
+                manager.close();
+            } catch (UncheckedIOException e) {
+                System.err.println("Could not close vehicle data: " + e.getMessage());
+            }
+        }));
+        server.start();
+        InetAddress host = server.getAddress().getAddress();
+        String shown = host.getHostAddress().indexOf(':') >= 0 ? "[" + host.getHostAddress() + "]" : host.getHostAddress();
+        System.out.println("Vehicle API listening on http://" + shown + ":" + server.getPort() + "/vehicles");
+    }
+}
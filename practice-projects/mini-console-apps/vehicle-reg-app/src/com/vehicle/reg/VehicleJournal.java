@@ -0,0 +1,752 @@
+package com.vehicle.reg;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * -----------------------------------------------------------------------------
+ * VehicleJournal.java
+ *
+ * Durable storage for the vehicle registry. Every add and delete is appended
+ * to a binary journal file; once the journal grows large it is compacted into
+ * a snapshot of the live vehicles. On startup the snapshot is loaded first
+ * and the journal tail is replayed on top of it. Snapshots are written in
+ * the memory-mappable ColumnarSnapshot format.
+ *
+ * Compaction runs in the background without holding up writers. rotate()
+ * renames the journal to vehicles.journal.prev and carries on in an empty
+ * one; that only flushes and renames, so it is cheap enough for the
+ * registry's write lock. writeSnapshot() then saves a frozen copy of the
+ * store as it was at the rotation and deletes the previous journal, on
+ * another thread while new records keep being appended. Until it has
+ * finished, replay reads the old snapshot, the previous journal and the
+ * current journal in that order, so a crash at any point loses nothing.
+ *
+ * Records are buffered and written in groups (group commit): a batch is
+ * flushed and forced to disk once enough records are pending, or by a
+ * background flusher within a few milliseconds, so bulk registration does
+ * not pay for one disk sync per vehicle.
+ *
+ * Appending only copies bytes. encodeAdd() and encodeDelete() build the
+ * framed, checksummed record without any lock, so the registry does that
+ * before taking its own; append() then copies it into the group buffer.
+ * flush() swaps in a second buffer before writing, so appends carry on
+ * while the previous group is written and forced (they only wait for a
+ * disk write when both buffers are full).
+ *
+ * Durability contract: logAdd(), logBatch() and logDelete() return once the
+ * record is buffered, not once it is on disk. A record is durable when the
+ * next flush() returns, which the background flusher does at most
+ * GROUP_COMMIT_INTERVAL_MS later; a crash in between loses those last
+ * changes (never part of a record or batch). Callers that must not
+ * acknowledge a change before it is on disk call flush() themselves.
+ *
+ * If writing or forcing a group fails, the journal stops accepting records:
+ * every later call fails with the original error, because it is unknown
+ * which buffered records reached the disk. Reopening the data directory
+ * recovers everything up to the last intact record.
+ *
+ * Record layout: [int length][payload][int CRC32 of payload]
+ * A torn or corrupt record at the end of the journal (e.g. after a crash)
+ * is detected by its length/CRC and cut off during replay.
+ *
+ * A batch of registrations is framed by BATCH_BEGIN(count) and BATCH_END
+ * records and is replayed only if all of it reached the disk, so a batch
+ * is never half-applied after a crash.
+ * -----------------------------------------------------------------------------
+ */
+public class VehicleJournal implements Closeable {
+
+    // Record types stored in the first payload byte
+    private static final byte OP_ADD = 1;
+    private static final byte OP_DELETE = 2;
+    private static final byte OP_BATCH_BEGIN = 3;
+    private static final byte OP_BATCH_END = 4;
+
+    // Header of the older row-by-row snapshot format ("VRG1"), still readable
+    private static final int ROW_SNAPSHOT_MAGIC = 0x56524731;
+
+    // Flush once this many records are pending, or after the interval elapses
+    private static final int GROUP_COMMIT_RECORDS = 512;
+    private static final long GROUP_COMMIT_INTERVAL_MS = 20;
+
+    // Never compact below this many journal records
+    private static final long MIN_COMPACT_RECORDS = 100_000;
+
+    // Upper bound on a single record (four strings of at most 64 KB each)
+    private static final int MAX_RECORD = 4 * (2 + 0xFFFF) + 16;
+
+    private final Path journalFile;
+    private final Path previousFile;
+    private final Path snapshotFile;
+    private final FileChannel lockChannel;
+    private final FileLock fileLock;
+    private FileChannel channel;
+    private final ScheduledExecutorService flusher;
+    private final CRC32 crc = new CRC32();
+
+    // Records are appended to buffer; flush() swaps it with spare and writes
+    // it out. Taken in this order: flushLock, then this.
+    private final Object flushLock = new Object();
+    private ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+    private ByteBuffer spare = ByteBuffer.allocate(1 << 20); // guarded by flushLock
+
+    private int pendingRecords;
+    private boolean flushRequested;
+    private long journalRecords;
+    private IOException failure;
+    private boolean closed;
+
+    // Set from rotate() until writeSnapshot() has replaced the previous
+    // journal; writingSnapshot while it is saving the file
+    private boolean rotated;
+    private boolean writingSnapshot;
+
+    /**
+     * Opens (or creates) the journal in the given data directory.
+     * Only one process may have a data directory open at a time.
+     *
+     * @param dataDir directory holding the journal and snapshot files
+     * @throws IOException if the files cannot be opened or are locked
+     */
+    public VehicleJournal(Path dataDir) throws IOException {
+        Files.createDirectories(dataDir);
+        journalFile = dataDir.resolve("vehicles.journal");
+        previousFile = dataDir.resolve("vehicles.journal.prev");
+        snapshotFile = dataDir.resolve("vehicles.snapshot");
+        // The journal file is replaced on rotation, so the lock lives in a
+        // file of its own
+        lockChannel = FileChannel.open(dataDir.resolve("vehicles.lock"), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        fileLock = lockChannel.tryLock();
+        if (fileLock == null) {
+            lockChannel.close();
+            throw new IOException("Vehicle data in " + dataDir + " is already in use by another process");
+        }
+        try {
+            channel = openJournal();
+        } catch (IOException e) {
+            lockChannel.close();
+            throw e;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "vehicle-journal-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly,
+                GROUP_COMMIT_INTERVAL_MS, GROUP_COMMIT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // =======================
+    // Recovery
+    // =======================
+
+    /**
+     * Loads the snapshot and replays the journal tail, in order: the
+     * previous journal of an unfinished compaction first, if there is one.
+     * Replay is idempotent when the callbacks apply the registry's normal
+     * duplicate rules, so a crash during compaction is harmless.
+     *
+     * @param onSnapshot called with the saved snapshot, memory-mapped, if it
+     *                   is in the columnar format; it is closed afterwards
+     * @param onAdd      called for every journaled vehicle (and every vehicle
+     *                   of an older row-by-row snapshot)
+     * @param onDelete   called with the VIN of every journaled delete
+     * @throws IOException if a record of an unknown type is found; nothing
+     *                     after it is applied and the journal is not touched
+     */
+    public synchronized void replay(Consumer<ColumnarSnapshot> onSnapshot, Consumer<Car> onAdd,
+                                    Consumer<String> onDelete) throws IOException {
+        if (Files.exists(snapshotFile)) {
+            loadSnapshot(onSnapshot, onAdd);
+        }
+        if (Files.exists(previousFile)) {
+            try (FileChannel previous = FileChannel.open(previousFile, StandardOpenOption.READ)) {
+                replayFile(previous, previousFile, onAdd, onDelete, new long[1]);
+            }
+            rotated = true; // finished by compact() once the registry is loaded
+        }
+
+        long[] count = {0};
+        long validEnd = replayFile(channel, journalFile, onAdd, onDelete, count);
+
+        // Drop a torn tail so new records are appended after the last good one
+        if (validEnd < channel.size()) {
+            channel.truncate(validEnd);
+        }
+        channel.position(validEnd);
+        journalRecords = count[0];
+    }
+
+    /**
+     * Returns true if a compaction was cut short (by a crash, or by closing
+     * while it waited to run), so its previous journal is still on disk.
+     * Call compact() after replay to finish it.
+     */
+    public synchronized boolean hasUnfinishedCompaction() {
+        return rotated;
+    }
+
+    // =======================
+    // Appending
+    // =======================
+
+    /**
+     * Journals a vehicle registration.
+     */
+    public void logAdd(Car car) throws IOException {
+        append(encodeAdd(car));
+    }
+
+    /**
+     * Journals several registrations that must be replayed all together
+     * or not at all. Every car is encoded before the batch is opened, so a
+     * car that cannot be recorded leaves nothing in the journal.
+     *
+     * @throws IllegalArgumentException if a field of any car is too long to
+     *                                  record; nothing is journaled then
+     */
+    public void logBatch(List<Car> cars) throws IOException {
+        List<byte[]> records = new ArrayList<>(cars.size());
+        for (Car car : cars) {
+            records.add(encodeAdd(car));
+        }
+        appendBatch(records);
+    }
+
+    /**
+     * Journals the deletion of the vehicle with the given VIN.
+     */
+    public void logDelete(String vin) throws IOException {
+        append(encodeDelete(vin));
+    }
+
+    /**
+     * Builds the journal record of a registration, for append(). Takes no
+     * lock.
+     *
+     * @throws IllegalArgumentException if a field is too long to record
+     */
+    static byte[] encodeAdd(Car car) {
+        byte[][] fields = encodeCar(car);
+        ByteBuffer out = frame(1 + 8 + 8 + fields[0].length + fields[1].length + fields[2].length
+                + fields[3].length);
+        out.put(OP_ADD);
+        putCar(out, fields[0], fields[1], fields[2], fields[3], car.getYear(), car.getMileage());
+        return seal(out);
+    }
+
+    /**
+     * Builds the journal record of a deletion, for append(). Takes no lock.
+     */
+    static byte[] encodeDelete(String vin) {
+        byte[] bytes = encode(vin);
+        ByteBuffer out = frame(1 + 2 + bytes.length);
+        out.put(OP_DELETE);
+        putString(out, bytes);
+        return seal(out);
+    }
+
+    /**
+     * Appends a record built by encodeAdd() or encodeDelete().
+     */
+    void append(byte[] record) throws IOException {
+        appendRecords(record, 1);
+    }
+
+    /**
+     * Appends registrations built by encodeAdd() as one batch, replayed all
+     * together or not at all.
+     */
+    void appendBatch(List<byte[]> records) throws IOException {
+        int length = 0;
+        for (byte[] record : records) {
+            length += record.length;
+        }
+        ByteBuffer out = ByteBuffer.allocate((5 + 8) + length + (1 + 8));
+        out.put(seal(frame(5).put(OP_BATCH_BEGIN).putInt(records.size())));
+        for (byte[] record : records) {
+            out.put(record);
+        }
+        out.put(seal(frame(1).put(OP_BATCH_END)));
+        appendRecords(out.array(), records.size() + 2);
+    }
+
+    /**
+     * Writes all buffered records and forces them to disk. Every record
+     * logged before this call is durable once it returns. Records appended
+     * meanwhile go to the other buffer and are written by the next flush.
+     *
+     * @throws IOException if the records cannot be written; the journal then
+     *                     refuses all further records (see the class notes)
+     */
+    public void flush() throws IOException {
+        synchronized (flushLock) {
+            ByteBuffer out;
+            synchronized (this) {
+                checkOpen();
+                if (buffer.position() == 0) {
+                    return;
+                }
+                out = buffer;
+                buffer = spare;
+                pendingRecords = 0;
+                flushRequested = false;
+            }
+            try {
+                write(out);
+            } finally {
+                spare = out;
+            }
+        }
+    }
+
+    // =======================
+    // Compaction
+    // =======================
+
+    /**
+     * Returns true once the journal holds enough records that rewriting
+     * the live vehicles as a snapshot would pay off, and no compaction is
+     * already under way.
+     *
+     * @param liveVehicles number of vehicles currently registered
+     */
+    public synchronized boolean needsCompaction(int liveVehicles) {
+        return !rotated && journalRecords > Math.max(MIN_COMPACT_RECORDS, 2L * liveVehicles);
+    }
+
+    /**
+     * Starts a background compaction: sets the current journal aside as the
+     * previous journal and continues in an empty one. The caller must keep
+     * registry changes out until it has taken the store copy it will pass
+     * to writeSnapshot(), so that copy holds exactly the journaled changes.
+     *
+     * @throws IOException if the files cannot be switched; the journal then
+     *                     refuses all further records
+     */
+    public void rotate() throws IOException {
+        synchronized (flushLock) {
+            flush();
+            synchronized (this) {
+                if (rotated) {
+                    throw new IllegalStateException("A compaction is already in progress");
+                }
+                try {
+                    channel.close();
+                    Files.move(journalFile, previousFile, StandardCopyOption.ATOMIC_MOVE);
+                    channel = openJournal();
+                } catch (IOException e) {
+                    failure = e;
+                    throw e;
+                }
+                rotated = true;
+                journalRecords = 0;
+            }
+        }
+    }
+
+    /**
+     * Finishes a compaction started by rotate(): saves the store copy taken
+     * at the rotation as the new snapshot and deletes the previous journal.
+     * Takes no lock while writing, so records keep being appended. If the
+     * journal is closed before this starts, or it fails, the previous
+     * journal is kept and compact() finishes the job on the next open.
+     *
+     * @param frozen store copy (CarStore.snapshot()) taken right after rotate()
+     */
+    void writeSnapshot(CarStore frozen) throws IOException {
+        synchronized (this) {
+            if (closed || !rotated) {
+                return;
+            }
+            writingSnapshot = true;
+        }
+        boolean saved = false;
+        try {
+            saveSnapshot(frozen);
+            Files.delete(previousFile);
+            saved = true;
+        } finally {
+            synchronized (this) {
+                writingSnapshot = false;
+                rotated = !saved;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Writes the store as the new snapshot and empties the journal, and
+     * any previous journal, in one go. Used to finish an unfinished
+     * compaction on open; the caller must make sure no registry changes
+     * happen meanwhile.
+     *
+     * @param store every currently registered vehicle
+     */
+    void compact(CarStore store) throws IOException {
+        synchronized (flushLock) {
+            synchronized (this) {
+                flush();
+                saveSnapshot(store);
+                Files.deleteIfExists(previousFile);
+                channel.truncate(0);
+                channel.position(0);
+                channel.force(true);
+                journalRecords = 0;
+                rotated = false;
+            }
+        }
+    }
+
+    /**
+     * Flushes outstanding records and releases the data directory.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (flushLock) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                flusher.shutdown();
+                try {
+                    checkOpen();
+                    if (buffer.position() > 0) {
+                        write(buffer);
+                    }
+                } finally {
+                    closed = true;
+                    // A snapshot being saved must finish while the directory is ours
+                    while (writingSnapshot) {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            break;
+                        }
+                    }
+                    channel.close();
+                    fileLock.release();
+                    lockChannel.close();
+                }
+            }
+        }
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    /**
+     * Returns a car's make, model, VIN and plate as UTF-8.
+     *
+     * @throws IllegalArgumentException if a field is too long to record
+     */
+    private static byte[][] encodeCar(Car car) {
+        return new byte[][] {
+                encode(car.getMake()), encode(car.getModel()), encode(car.getVin()), encode(car.getPlateNumber())
+        };
+    }
+
+    /**
+     * Starts a record of the given payload length: a buffer holding the
+     * length, with room for the payload and the checksum.
+     */
+    private static ByteBuffer frame(int length) {
+        return ByteBuffer.allocate(length + 8).putInt(length);
+    }
+
+    /**
+     * Appends the checksum of the payload written after frame().
+     */
+    private static byte[] seal(ByteBuffer out) {
+        CRC32 crc = new CRC32();
+        crc.update(out.array(), 4, out.position() - 4);
+        out.putInt((int) crc.getValue());
+        return out.array();
+    }
+
+    /**
+     * Copies framed records into the group buffer, making room by flushing
+     * if it is full, and asks the flusher to write the group once it is
+     * large enough.
+     *
+     * @param count number of records in bytes
+     */
+    private void appendRecords(byte[] bytes, int count) throws IOException {
+        while (true) {
+            synchronized (this) {
+                checkOpen();
+                if (buffer.remaining() >= bytes.length) {
+                    buffer.put(bytes);
+                    journalRecords += count;
+                    pendingRecords += count;
+                    if (pendingRecords >= GROUP_COMMIT_RECORDS && !flushRequested) {
+                        flushRequested = true;
+                        flusher.execute(this::flushQuietly);
+                    }
+                    return;
+                }
+                if (buffer.position() == 0) {
+                    break; // larger than the whole buffer
+                }
+            }
+            flush();
+        }
+        // A batch larger than the buffer is written straight to the journal
+        synchronized (flushLock) {
+            synchronized (this) {
+                checkOpen();
+                if (buffer.position() > 0) {
+                    write(buffer);
+                }
+                write(ByteBuffer.wrap(bytes).position(bytes.length));
+                journalRecords += count;
+                pendingRecords = 0;
+            }
+        }
+    }
+
+    /**
+     * Writes out a filled buffer and forces it to disk, leaving it empty.
+     * The caller holds flushLock.
+     */
+    private void write(ByteBuffer out) throws IOException {
+        out.flip();
+        try {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            synchronized (this) {
+                failure = e; // part of the group may be on disk: accept nothing more
+            }
+            throw e;
+        } finally {
+            out.clear();
+        }
+    }
+
+    private FileChannel openJournal() throws IOException {
+        return FileChannel.open(journalFile, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Writes a snapshot file next to the current one and swaps it in.
+     */
+    private void saveSnapshot(CarStore store) throws IOException {
+        Path tmp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        ColumnarSnapshot.write(tmp, store);
+        Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Replays the records of one journal file.
+     *
+     * @param count incremented for every record read
+     * @return offset just past the last intact record, leaving out a batch
+     *         cut off by a crash
+     */
+    private long replayFile(FileChannel in, Path file, Consumer<Car> onAdd, Consumer<String> onDelete,
+                            long[] count) throws IOException {
+        long[] offset = {0};
+        BatchReplay batch = new BatchReplay();
+        long validEnd;
+        try {
+            validEnd = readRecords(in, 0, payload -> {
+                long recordStart = offset[0];
+                offset[0] += 8 + payload.remaining();
+                count[0]++;
+                byte op = payload.get();
+                if (batch.cars != null && op != OP_ADD && op != OP_BATCH_END) {
+                    batch.cars = null; // unfinished batch: never applied
+                }
+                switch (op) {
+                    case OP_ADD:
+                        Car car = readCar(payload);
+                        if (batch.cars != null) {
+                            batch.cars.add(car);
+                        } else {
+                            onAdd.accept(car);
+                        }
+                        break;
+                    case OP_BATCH_BEGIN:
+                        batch.cars = new ArrayList<>();
+                        batch.expected = payload.getInt();
+                        batch.start = recordStart;
+                        break;
+                    case OP_BATCH_END:
+                        if (batch.cars != null && batch.cars.size() == batch.expected) {
+                            batch.cars.forEach(onAdd);
+                        }
+                        batch.cars = null;
+                        break;
+                    case OP_DELETE:
+                        onDelete.accept(readString(payload));
+                        break;
+                    default:
+                        throw new UncheckedIOException(new IOException("Unknown journal record type " + op
+                                + " at offset " + recordStart + " of " + file
+                                + " (corrupt, or written by a newer version)"));
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return batch.cars != null ? batch.start : validEnd; // drop a batch cut off by a crash
+    }
+
+    /**
+     * Hands the snapshot file to the callbacks: a columnar snapshot as a
+     * whole, an older row-by-row one vehicle by vehicle.
+     */
+    private void loadSnapshot(Consumer<ColumnarSnapshot> onSnapshot, Consumer<Car> onAdd) throws IOException {
+        try (FileChannel in = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            if (!ColumnarSnapshot.isColumnar(in)) {
+                ByteBuffer header = ByteBuffer.allocate(4);
+                in.read(header, 0);
+                if (header.position() < 4 || header.getInt(0) != ROW_SNAPSHOT_MAGIC) {
+                    throw new IOException("Not a vehicle snapshot: " + snapshotFile);
+                }
+                readRecords(in, 8, payload -> onAdd.accept(readCar(payload)));
+                return;
+            }
+        }
+        try (ColumnarSnapshot snapshot = ColumnarSnapshot.open(snapshotFile)) {
+            onSnapshot.accept(snapshot);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            // closed, or recorded in failure and reported to every later writer
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Vehicle journal is closed");
+        }
+        if (failure != null) {
+            throw new IOException("Vehicle journal stopped after a failed write; reopen the data directory to recover",
+                    failure);
+        }
+    }
+
+    private int checksum(ByteBuffer buf, int start, int length) {
+        ByteBuffer payload = buf.duplicate();
+        payload.limit(start + length).position(start);
+        crc.reset();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Reads framed records from the channel starting at the given offset.
+     *
+     * @return offset just past the last complete, valid record
+     */
+    private long readRecords(FileChannel in, long start, Consumer<ByteBuffer> handler) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(1 << 20);
+        long validEnd = start;
+        in.position(start);
+        while (true) {
+            int read = in.read(buf);
+            buf.flip();
+            while (buf.remaining() >= 4) {
+                int recordStart = buf.position();
+                int length = buf.getInt();
+                if (length <= 0 || length > MAX_RECORD) {
+                    return validEnd; // garbage: treat as end of data
+                }
+                if (buf.remaining() < length + 4) {
+                    buf.position(recordStart);
+                    break;
+                }
+                int expected = checksum(buf, recordStart + 4, length);
+                if (buf.getInt(recordStart + 4 + length) != expected) {
+                    return validEnd;
+                }
+                ByteBuffer payload = buf.duplicate();
+                payload.limit(recordStart + 4 + length).position(recordStart + 4);
+                handler.accept(payload);
+                buf.position(recordStart + 8 + length);
+                validEnd += 8 + length;
+            }
+            if (read < 0) {
+                return validEnd;
+            }
+            buf.compact();
+        }
+    }
+
+    /**
+     * Registrations of a batch seen during replay, held until its end record.
+     */
+    private static class BatchReplay {
+        List<Car> cars;
+        int expected;
+        long start;
+    }
+
+    private static void putCar(ByteBuffer out, byte[] make, byte[] model, byte[] vin, byte[] plate,
+                               int year, int mileage) {
+        putString(out, make);
+        putString(out, model);
+        putString(out, vin);
+        putString(out, plate);
+        out.putInt(year);
+        out.putInt(mileage);
+    }
+
+    private static Car readCar(ByteBuffer in) {
+        Car car = new Car();
+        car.setMake(readString(in));
+        car.setModel(readString(in));
+        car.setVin(readString(in));
+        car.setPlateNumber(readString(in));
+        car.setYear(in.getInt());
+        car.setMileage(in.getInt());
+        return car;
+    }
+
+    private static byte[] encode(String value) {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Field too long to store: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    private static void putString(ByteBuffer out, byte[] bytes) {
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = Short.toUnsignedInt(in.getShort());
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+}
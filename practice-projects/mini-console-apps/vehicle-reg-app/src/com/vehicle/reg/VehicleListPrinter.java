@@ -0,0 +1,188 @@
+package com.vehicle.reg;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * -----------------------------------------------------------------------------
+ * VehicleListPrinter.java
+ *
+ * Prints the registry to the console one page at a time, in VIN order,
+ * as a table with one line per vehicle:
+ *
+ *        #  VIN                PLATE     MAKE            MODEL           YEAR  MILEAGE
+ *        1  1HGCM82633A004352  ABC123GP  Toyota          Corolla         2015    45000
+ *
+ * Each page is rendered straight from the store's columns into one byte
+ * buffer that is reused for every page, then written with a single call,
+ * so listing a million vehicles creates no String per field or per row.
+ * Make and model cells are encoded once per distinct value.
+ *
+ * Pages continue after the last VIN printed (keyset paging), so vehicles
+ * added or deleted between pages never cause skipped or repeated rows.
+ * Each page starts with a binary search of the search index's sorted slot
+ * list and then reads the following slots in order; the cursor is copied
+ * out of the VIN column into a reused buffer.
+ * -----------------------------------------------------------------------------
+ */
+public class VehicleListPrinter {
+
+    // Characters shown of a make or model
+    private static final int TEXT_WIDTH = 15;
+
+    // Widest possible row in bytes (UTF-8 text cells take up to 3 bytes a character)
+    private static final int MAX_ROW = 8 + CarStore.VIN_WIDTH + 2 + CarStore.PLATE_WIDTH + 2
+            + 2 * (3 * TEXT_WIDTH + 1) + 6 + 9 + 1;
+
+    private static final byte[] HEADER = String.format("%6s  %-17s  %-8s  %-15s %-15s %5s  %7s%n",
+            "#", "VIN", "PLATE", "MAKE", "MODEL", "YEAR", "MILEAGE").getBytes(StandardCharsets.UTF_8);
+
+    private final VehicleManager manager;
+    private final OutputStream out;
+    private final int pageSize;
+    private final ByteBuffer buf;
+
+    // Slots of the current page, plus one to tell whether more follow
+    private final int[] slots;
+
+    // Padded make/model cells by dictionary code
+    private byte[][] makeCells = new byte[16][];
+    private byte[][] modelCells = new byte[16][];
+
+    // Last VIN printed; empty before the first page
+    private final StringBuilder cursor = new StringBuilder(CarStore.VIN_WIDTH);
+    private long printed;
+    private boolean finished;
+
+    /**
+     * @param pageSize vehicles per page (at least 1)
+     */
+    public VehicleListPrinter(VehicleManager manager, OutputStream out, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        this.manager = manager;
+        this.out = out;
+        this.pageSize = pageSize;
+        this.buf = ByteBuffer.allocate(HEADER.length + pageSize * MAX_ROW);
+        this.slots = new int[pageSize + 1];
+    }
+
+    /**
+     * Prints the next page (the first page starts with the column titles).
+     *
+     * @return true if more vehicles follow, false once the last page is out
+     */
+    public boolean printNextPage() throws IOException {
+        if (finished) {
+            return false;
+        }
+        buf.clear();
+        if (printed == 0) {
+            buf.put(HEADER);
+        }
+        boolean[] more = {false};
+        manager.readIndexed((store, index) -> {
+            int found = index.vinsAfter(store, printed == 0 ? null : cursor, slots);
+            int rows = Math.min(found, pageSize);
+            for (int row = 0; row < rows; row++) {
+                putRow(store, slots[row]);
+            }
+            if (rows > 0) {
+                store.copyVin(slots[rows - 1], cursor);
+            }
+            more[0] = found > pageSize;
+        });
+        out.write(buf.array(), 0, buf.position());
+        out.flush();
+        finished = !more[0];
+        return more[0];
+    }
+
+    /** Returns the number of vehicles printed so far. */
+    public long getPrinted() {
+        return printed;
+    }
+
+    /** Starts again from the first page. */
+    public void reset() {
+        cursor.setLength(0);
+        printed = 0;
+        finished = false;
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    private void putRow(CarStore store, int slot) {
+        putNumber(++printed, 6);
+        buf.put((byte) ' ').put((byte) ' ');
+        store.copyVin(slot, buf);
+        buf.put((byte) ' ').put((byte) ' ');
+        int start = buf.position();
+        store.copyPlate(slot, buf);
+        pad(CarStore.PLATE_WIDTH - (buf.position() - start) + 2);
+
+        int make = store.makeCode(slot);
+        if (make >= makeCells.length) {
+            makeCells = Arrays.copyOf(makeCells, Math.max(make + 1, makeCells.length * 2));
+        }
+        if (makeCells[make] == null) {
+            makeCells[make] = cell(store.decodeMake(make));
+        }
+        buf.put(makeCells[make]);
+
+        int model = store.modelCode(slot);
+        if (model >= modelCells.length) {
+            modelCells = Arrays.copyOf(modelCells, Math.max(model + 1, modelCells.length * 2));
+        }
+        if (modelCells[model] == null) {
+            modelCells[model] = cell(store.decodeModel(model));
+        }
+        buf.put(modelCells[model]);
+
+        putNumber(store.year(slot), 5);
+        buf.put((byte) ' ').put((byte) ' ');
+        putNumber(store.mileage(slot), 7);
+        buf.put((byte) '\n');
+    }
+
+    /** Returns a make/model cell: the text cut or padded to TEXT_WIDTH, plus a space. */
+    private static byte[] cell(String text) {
+        String value = text.length() > TEXT_WIDTH ? text.substring(0, TEXT_WIDTH) : text;
+        StringBuilder sb = new StringBuilder(TEXT_WIDTH + 1).append(value);
+        while (sb.length() <= TEXT_WIDTH) {
+            sb.append(' ');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void pad(int spaces) {
+        for (int i = 0; i < spaces; i++) {
+            buf.put((byte) ' ');
+        }
+    }
+
+    /**
+     * Writes a number right-aligned in the given width, without a String.
+     */
+    private void putNumber(long value, int width) {
+        int digits = 1;
+        for (long v = Math.abs(value) / 10; v > 0; v /= 10) {
+            digits++;
+        }
+        pad(width - digits - (value < 0 ? 1 : 0));
+        if (value < 0) {
+            buf.put((byte) '-');
+        }
+        long divisor = 1;
+        for (int i = 1; i < digits; i++) {
+            divisor *= 10;
+        }
+        for (long v = Math.abs(value); divisor > 0; divisor /= 10) {
+            buf.put((byte) ('0' + (v / divisor) % 10));
+        }
+    }
+}
@@ -1,7 +1,25 @@
 package com.vehicle.reg;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * -----------------------------------------------------------------------------
@@ -10,54 +28,507 @@ import java.util.List;
  * Central manager for storing and managing all registered vehicles.
  * Provides methods to add, find, delete, and return the full list.
  * Used by all GUI components (forms, views, search, delete).
+ *
+ * Vehicles are kept in a CarStore, which holds each field in a compact
+ * primitive column and indexes the normalized (upper-cased) VIN and plate
+ * number so that duplicate checks, lookups and deletes do not need to scan
+ * every vehicle. Car objects are only created when a caller asks for one.
+ *
+ * The manager is safe to share between threads: lookups run concurrently
+ * under a read lock, while adds and deletes take the write lock so the
+ * VIN/plate uniqueness check and the insert happen as one atomic step.
+ * The write lock covers only that check and the in-memory change: journal
+ * records are encoded before it is taken and merely copied into the
+ * journal's buffer under it (the disk sync runs on the journal's flusher),
+ * and listeners are called after it is released.
+ *
+ * When opened on a data directory, every change is written to a
+ * VehicleJournal before it is applied, and the registry is rebuilt from
+ * that journal the next time the application starts. Changes reach the
+ * disk in groups a few milliseconds later; flush() waits for them.
+ *
+ * search() answers partial and mistyped VIN/plate queries from a
+ * VehicleSearchIndex that is kept in step with the store.
+ *
+ * Every add, delete, lookup and search is counted and timed in the
+ * manager's RegistryMetrics (see getMetrics()).
+ *
+ * Deleting only tombstones the vehicle's slot, so it costs the same at any
+ * registry size. Once most slots are dead, the store is packed on a
+ * background thread rather than by the delete that crossed the threshold.
+ * Rewriting a long journal as a snapshot likewise happens on that thread,
+ * from a frozen copy of the store, so no add or delete waits for it.
+ *
+ * Open views can follow changes through addListener(): each add, batch,
+ * delete or bulk delete is reported to every RegistryListener as one list
+ * of RegistryEvents, in order, once the write lock is released. No events
+ * are built while nobody is listening.
+ *
+ * snapshot() pins the registry at its current version for long reads:
+ * reports and exports walk the RegistrySnapshot without a lock while
+ * registrations and deletes carry on.
  * -----------------------------------------------------------------------------
  */
 public class VehicleManager {
 
-    // Master list of vehicles stored in memory
-    private final List<Car> vehicles;
+    /** Default location of the registry files, relative to the working directory */
+    public static final Path DEFAULT_DATA_DIR = Paths.get("vehicle-data");
+
+    // Column store holding every registered vehicle, indexed by VIN and plate
+    private final CarStore store = new CarStore();
+
+    // Totals kept up to date on every add and delete
+    private final RunningStats stats = new RunningStats();
+
+    // Sorted VINs and plates for partial and near-miss searches
+    private final VehicleSearchIndex searchIndex = new VehicleSearchIndex();
+
+    // Guards the store and stats (many readers, one writer)
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Durable change log, or null for a purely in-memory registry
+    private final VehicleJournal journal;
 
+    // Operation counters and latencies
+    private final RegistryMetrics metrics = new RegistryMetrics(this::size, this::estimatedBytes);
+
+    // Packs stores full of deleted slots and writes journal snapshots, off the
+    // writing threads (shared by all registries)
+    private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "registry-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Set while a background compaction is waiting to run
+    private final AtomicBoolean compactionQueued = new AtomicBoolean();
+
+    // Receivers of change events, the events of the current operation, and
+    // those of finished operations waiting to be delivered (in order, by one
+    // thread at a time)
+    private final List<RegistryListener> listeners = new CopyOnWriteArrayList<>();
+    private final List<RegistryEvent> changes = new ArrayList<>();
+    private final Queue<List<RegistryEvent>> outbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean publishing = new AtomicBoolean();
+
+    /**
+     * Creates an empty, in-memory registry.
+     */
     public VehicleManager() {
-        vehicles = new ArrayList<>();
+        journal = null;
+    }
+
+    /**
+     * Opens a persistent registry stored in the given directory,
+     * restoring all vehicles saved by previous runs.
+     *
+     * @param dataDir directory for the snapshot and journal files
+     * @throws IOException if the data cannot be read or is in use
+     */
+    public VehicleManager(Path dataDir) throws IOException {
+        VehicleJournal opened = new VehicleJournal(dataDir);
+        try {
+            opened.replay(this::load, this::insert, this::remove);
+            if (store.isSparse()) {
+                searchIndex.renumber(store.compact());
+            }
+            if (opened.hasUnfinishedCompaction()) {
+                opened.compact(store);
+            }
+        } catch (IllegalArgumentException e) {
+            opened.close();
+            throw new IOException("Saved vehicle data is invalid: " + e.getMessage(), e);
+        } catch (IOException | RuntimeException e) {
+            opened.close();
+            throw e;
+        }
+        journal = opened;
     }
 
     /**
      * Adds a new car to the list if VIN and plate number are unique.
+     * The car's details are copied; later changes to the object are not seen.
      *
      * @param car Car object to add
      * @return true if added successfully, false if duplicate
+     * @throws IllegalArgumentException if the VIN is not 17 characters, the
+     *                                  plate is longer than 8 characters, or
+     *                                  the year or mileage is out of range
      */
     public boolean addCar(Car car) {
-        for (Car existing : vehicles) {
-            if (existing.getVin().equalsIgnoreCase(car.getVin()) ||
-                    existing.getPlateNumber().equalsIgnoreCase(car.getPlateNumber())) {
+        long start = System.nanoTime();
+        checkStorable(car);
+        byte[] record = journal == null ? null : VehicleJournal.encodeAdd(car);
+        lock.writeLock().lock();
+        try {
+            if (isDuplicate(car)) {
+                metrics.recordAdd(start, false);
                 return false; // Duplicate VIN or plate number
             }
+            if (journal != null) {
+                journal.append(record);
+            }
+            insert(car);
+            scheduleCompaction();
+            metrics.recordAdd(start, true);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not save vehicle " + car.getVin(), e);
+        } finally {
+            queueChanges();
+            lock.writeLock().unlock();
+            publishChanges();
+        }
+    }
+
+    /**
+     * Adds several cars under a single lock, checking each one against the
+     * registry and against cars earlier in the same list.
+     *
+     * @param cars cars to add, in order
+     * @return for each car, true if added or false if its VIN or plate
+     *         was already taken
+     * @throws IllegalArgumentException if any car's VIN or plate does not
+     *                                  fit the store, or its year or mileage
+     *                                  is out of range; nothing is added then
+     */
+    public boolean[] addAll(List<Car> cars) {
+        long start = System.nanoTime();
+        byte[][] records = new byte[cars.size()][];
+        for (int i = 0; i < cars.size(); i++) {
+            checkStorable(cars.get(i));
+            if (journal != null) {
+                records[i] = VehicleJournal.encodeAdd(cars.get(i));
+            }
+        }
+        boolean[] added = new boolean[cars.size()];
+        int addedCount = 0;
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < cars.size(); i++) {
+                Car car = cars.get(i);
+                if (isDuplicate(car)) {
+                    continue;
+                }
+                if (journal != null) {
+                    journal.append(records[i]);
+                }
+                insert(car);
+                added[i] = true;
+                addedCount++;
+            }
+            scheduleCompaction();
+            metrics.recordBatch(start, addedCount, cars.size() - addedCount);
+            return added;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not save vehicles", e);
+        } finally {
+            queueChanges();
+            lock.writeLock().unlock();
+            publishChanges();
+        }
+    }
+
+    /**
+     * Registers a batch of vehicles (e.g. a dealer feed) in one operation.
+     *
+     * Every vehicle is validated and checked against the rest of the batch
+     * in a single pass before any lock is taken. The registry check and all
+     * inserts then happen under one write lock, and the additions are
+     * journaled as one batch that is restored after a crash entirely or
+     * not at all.
+     *
+     * @param cars vehicles to register, in order
+     * @param mode ALL_OR_NOTHING to add nothing if any entry is rejected,
+     *             PER_ITEM to add every acceptable entry
+     * @return the status of each vehicle
+     */
+    public BatchResult registerBatch(List<Car> cars, BatchResult.Mode mode) {
+        long start = System.nanoTime();
+        BatchResult result = new BatchResult(cars.size());
+
+        // Validation and duplicates within the batch, outside the lock
+        Set<String> vins = new HashSet<>(cars.size() * 2);
+        Set<String> plates = new HashSet<>(cars.size() * 2);
+        boolean[] accepted = new boolean[cars.size()];
+        byte[][] records = new byte[cars.size()][];
+        int invalid = 0;
+        int duplicates = 0;
+        int maxYear = VehicleValidator.maxYear();
+        for (int i = 0; i < cars.size(); i++) {
+            Car car = cars.get(i);
+            String problem = VehicleValidator.findProblem(car, maxYear);
+            if (problem != null) {
+                result.set(i, BatchResult.Status.INVALID, problem);
+                invalid++;
+                continue;
+            }
+            String vin = car.getVin().toUpperCase(Locale.ROOT);
+            String plate = car.getPlateNumber().toUpperCase(Locale.ROOT);
+            if (vins.contains(vin) || plates.contains(plate)) {
+                result.set(i, BatchResult.Status.DUPLICATE_IN_BATCH, "VIN or plate number repeated in batch");
+                duplicates++;
+                continue;
+            }
+            vins.add(vin);
+            plates.add(plate);
+            accepted[i] = true;
+            if (journal != null) {
+                records[i] = VehicleJournal.encodeAdd(car);
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            List<byte[]> toAdd = new ArrayList<>(cars.size());
+            for (int i = 0; i < cars.size(); i++) {
+                if (!accepted[i]) {
+                    continue;
+                }
+                if (isDuplicate(cars.get(i))) {
+                    result.set(i, BatchResult.Status.ALREADY_REGISTERED, "VIN or plate number already registered");
+                    accepted[i] = false;
+                    duplicates++;
+                } else {
+                    toAdd.add(records[i]);
+                }
+            }
+
+            if (mode == BatchResult.Mode.ALL_OR_NOTHING && toAdd.size() < cars.size()) {
+                String reason = "Batch not added: " + (cars.size() - toAdd.size()) + " vehicle(s) rejected";
+                for (int i = 0; i < cars.size(); i++) {
+                    if (accepted[i]) {
+                        result.set(i, BatchResult.Status.NOT_ADDED, reason);
+                    }
+                }
+                metrics.recordInvalid(invalid);
+                metrics.recordBatch(start, 0, duplicates);
+                return result;
+            }
+
+            if (journal != null && !toAdd.isEmpty()) {
+                journal.appendBatch(toAdd);
+            }
+            for (int i = 0; i < cars.size(); i++) {
+                if (accepted[i]) {
+                    insert(cars.get(i));
+                    result.set(i, BatchResult.Status.ADDED, null);
+                }
+            }
+            scheduleCompaction();
+            metrics.recordInvalid(invalid);
+            metrics.recordBatch(start, result.getAddedCount(), duplicates);
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not save vehicles", e);
+        } finally {
+            queueChanges();
+            lock.writeLock().unlock();
+            publishChanges();
         }
-        vehicles.add(car);
-        return true;
     }
 
     /**
-     * Returns the current list of all registered vehicles.
+     * Returns a snapshot of all registered vehicles.
+     * The returned list is read-only and is not affected by later
+     * adds or deletes, so it can be iterated safely from any thread.
+     * The list is built from a RegistrySnapshot, so registrations are
+     * not held up while it is filled.
      */
     public List<Car> getAllCars() {
-        return vehicles;
+        try (RegistrySnapshot snapshot = snapshot()) {
+            return snapshot.toList();
+        }
+    }
+
+    /**
+     * Pins the registry as it is now and returns a read-only view of it
+     * that later adds and deletes do not affect. Reading the view takes no
+     * lock, so use it for long reports and exports. Close it when done.
+     */
+    public RegistrySnapshot snapshot() {
+        lock.readLock().lock();
+        try {
+            return new RegistrySnapshot(store.snapshot());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the registry version: the number of adds and deletes made so
+     * far (since the registry was opened or restored).
+     */
+    public long getVersion() {
+        lock.readLock().lock();
+        try {
+            return store.version();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns one page of vehicles in VIN order, starting after the given
+     * VIN. Use the page's next cursor to fetch the following page; paging
+     * stays stable while vehicles are added or deleted in between.
+     *
+     * @param afterVin cursor from the previous page, or null for the first page
+     * @param pageSize maximum number of vehicles on the page (at least 1)
+     */
+    public VehiclePage getPage(String afterVin, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        lock.readLock().lock();
+        try {
+            // One extra slot tells whether another page follows
+            int[] slots = new int[Math.min(pageSize, store.size()) + 1];
+            int found = searchIndex.vinsAfter(store, afterVin == null || afterVin.isEmpty() ? null : afterVin, slots);
+            List<Car> cars = new ArrayList<>(Math.min(found, pageSize));
+            for (int i = 0; i < found && i < pageSize; i++) {
+                cars.add(store.get(slots[i]));
+            }
+            String next = found > pageSize ? cars.get(cars.size() - 1).getVin() : null;
+            return new VehiclePage(cars, next);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Visits every registered vehicle without building a list.
+     * The same Car instance is reused for each call, so copy its values
+     * if they are needed after the callback returns. The walk covers the
+     * registry as it was when it started; changes made meanwhile (even by
+     * the callback) are not seen and are not held up.
+     *
+     * @param action callback receiving each vehicle in registration order
+     */
+    public void forEachCar(Consumer<Car> action) {
+        try (RegistrySnapshot snapshot = snapshot()) {
+            snapshot.forEachCar(action);
+        }
+    }
+
+    /**
+     * Returns the current fleet totals. Costs the same no matter how many
+     * vehicles are registered.
+     */
+    public FleetStats getStats() {
+        lock.readLock().lock();
+        try {
+            return stats.snapshot();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs the given code against the underlying store while holding the
+     * read lock, for package components that work on columns directly.
+     */
+    void readStore(Consumer<CarStore> reader) {
+        lock.readLock().lock();
+        try {
+            reader.accept(store);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Like readStore(), but also passes the sorted VIN/plate index.
+     */
+    void readIndexed(BiConsumer<CarStore, VehicleSearchIndex> reader) {
+        lock.readLock().lock();
+        try {
+            reader.accept(store, searchIndex);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of registered vehicles.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return store.size();
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
      * Searches for a car by VIN or plate number.
      * @param query VIN or plate (case-insensitive)
-     * @return Car if found, or null
+     * @return a copy of the Car if found, or null
      */
     public Car findCar(String query) {
-        for (Car car : vehicles) {
-            if (car.getVin().equalsIgnoreCase(query) ||
-                    car.getPlateNumber().equalsIgnoreCase(query)) {
-                return car;
+        long start = metrics.startLookup();
+        lock.readLock().lock();
+        try {
+            int slot = store.slotOfVin(query);
+            if (slot < 0) {
+                slot = store.slotOfPlate(query);
             }
+            metrics.recordLookup(start, slot >= 0);
+            return slot < 0 ? null : store.get(slot); // null if not found
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Searches by full or partial VIN or plate, tolerating one mistyped,
+     * missing, extra or swapped character.
+     *
+     * @param query full or partial VIN or plate (case-insensitive)
+     * @param limit maximum number of results
+     * @return copies of the matching cars, best match first: exact match,
+     *         then one-character differences, then prefix matches
+     */
+    public List<Car> search(String query, int limit) {
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            List<Car> cars = new ArrayList<>();
+            for (int slot : searchIndex.search(store, query, limit)) {
+                cars.add(store.get(slot));
+            }
+            metrics.recordSearch(start);
+            return cars;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Checks whether a vehicle with this VIN is registered.
+     * @param vin VIN to look up (case-insensitive)
+     */
+    public boolean containsVin(String vin) {
+        lock.readLock().lock();
+        try {
+            return store.slotOfVin(vin) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Checks whether a vehicle with this plate number is registered.
+     * @param plate plate number to look up (case-insensitive)
+     */
+    public boolean containsPlate(String plate) {
+        lock.readLock().lock();
+        try {
+            return store.slotOfPlate(plate) >= 0;
+        } finally {
+            lock.readLock().unlock();
         }
-        return null; // Not found
     }
 
     /**
@@ -66,12 +537,310 @@ public class VehicleManager {
      * @return true if removed, false if not found
      */
     public boolean deleteCar(String vin) {
-        for (Car car : vehicles) {
-            if (car.getVin().equalsIgnoreCase(vin)) {
-                vehicles.remove(car);
-                return true;
+        long start = System.nanoTime();
+        byte[] record = deleteRecord(vin);
+        lock.writeLock().lock();
+        try {
+            int slot = store.slotOfVin(vin);
+            if (slot < 0) {
+                metrics.recordDelete(start, false);
+                return false; // VIN not found
+            }
+            if (journal != null) {
+                journal.append(record);
+            }
+            removeSlot(slot);
+            scheduleCompaction();
+            metrics.recordDelete(start, true);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete vehicle " + vin, e);
+        } finally {
+            queueChanges();
+            lock.writeLock().unlock();
+            publishChanges();
+        }
+    }
+
+    /**
+     * Deletes several vehicles by VIN under a single lock, e.g. for a mass
+     * deregistration run. Each delete is journaled on its own, so after a
+     * crash a prefix of the list may have been applied.
+     *
+     * @param vins VINs to remove, in order
+     * @return for each VIN, true if removed or false if it was not registered
+     */
+    public boolean[] deleteAll(List<String> vins) {
+        boolean[] deleted = new boolean[vins.size()];
+        byte[][] records = new byte[vins.size()][];
+        for (int i = 0; i < vins.size(); i++) {
+            records[i] = deleteRecord(vins.get(i));
+        }
+        int count = 0;
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < vins.size(); i++) {
+                String vin = vins.get(i);
+                int slot = vin == null ? -1 : store.slotOfVin(vin);
+                if (slot < 0) {
+                    continue;
+                }
+                if (journal != null) {
+                    journal.append(records[i]);
+                }
+                removeSlot(slot);
+                deleted[i] = true;
+                count++;
+            }
+            scheduleCompaction();
+            return deleted;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete vehicles", e);
+        } finally {
+            queueChanges();
+            lock.writeLock().unlock();
+            publishChanges();
+            metrics.recordDeletes(count, vins.size() - count);
+        }
+    }
+
+    /**
+     * Registers a listener for every later add and delete. It is called
+     * after the registry lock is released; see RegistryListener.
+     */
+    public void addListener(RegistryListener listener) {
+        listeners.add(listener);
+    }
+
+    /** Stops sending events to a listener added with addListener(). */
+    public void removeListener(RegistryListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns the counters and latency histograms of this registry.
+     */
+    public RegistryMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Waits until every change made so far is on disk. Adds and deletes
+     * return once journaled in memory and reach the disk with the next group
+     * commit, a few milliseconds later (see VehicleJournal); call this
+     * before acknowledging a change that must survive a crash. Nothing to
+     * do for an in-memory registry.
+     */
+    public void flush() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not save vehicle data", e);
+        }
+    }
+
+    /**
+     * Writes any pending changes to disk and releases the data directory
+     * (nothing to do for an in-memory registry), and removes the metrics
+     * MBean if one was registered.
+     */
+    public void close() {
+        metrics.unregisterMBean();
+        if (journal == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not close vehicle data", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    /**
+     * CarStore.checkStorable() plus the validator's make/model length and
+     * year and mileage ranges, counting the car as invalid if it fails.
+     * Keeps reports that size arrays by year (FleetAnalytics) within bounds
+     * and every field within what the journal can record.
+     */
+    private void checkStorable(Car car) {
+        try {
+            CarStore.checkStorable(car);
+            if (!VehicleValidator.isValidNameLength(car.getMake())
+                    || !VehicleValidator.isValidNameLength(car.getModel())) {
+                throw new IllegalArgumentException("Make and model must be at most "
+                        + VehicleValidator.MAX_NAME_LENGTH + " characters");
             }
+            if (!VehicleValidator.isValidYear(car.getYear())) {
+                throw new IllegalArgumentException("Year out of range: " + car.getYear());
+            }
+            if (!VehicleValidator.isValidMileage(car.getMileage())) {
+                throw new IllegalArgumentException("Mileage out of range: " + car.getMileage());
+            }
+        } catch (IllegalArgumentException e) {
+            metrics.recordInvalid(1);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the journal record deleting a VIN, or null if there is no
+     * journal or the VIN cannot be registered (so is never deleted).
+     */
+    private byte[] deleteRecord(String vin) {
+        if (journal == null || vin == null || vin.length() != CarStore.VIN_WIDTH) {
+            return null;
+        }
+        return VehicleJournal.encodeDelete(vin);
+    }
+
+    private long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            return store.estimatedBytes() + searchIndex.estimatedBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Callers of the methods below must hold the write lock (or be
+    // replaying during construction).
+
+    private boolean isDuplicate(Car car) {
+        return store.slotOfVin(car.getVin()) >= 0
+                || store.slotOfPlate(car.getPlateNumber()) >= 0;
+    }
+
+    /**
+     * Stores a car, ignoring duplicates.
+     */
+    private void insert(Car car) {
+        CarStore.checkStorable(car);
+        int slot = store.add(car);
+        if (slot >= 0) {
+            stats.add(car.getYear(), car.getMileage());
+            searchIndex.add(store, slot);
+            if (!listeners.isEmpty()) {
+                changes.add(RegistryEvent.added(store.get(slot), store.version()));
+            }
+        }
+    }
+
+    /**
+     * Adds every vehicle of a saved snapshot, copied column by column.
+     */
+    private void load(ColumnarSnapshot snapshot) {
+        int first = store.addAll(snapshot);
+        for (int slot = first; slot < store.slotCount(); slot++) {
+            stats.add(store.year(slot), store.mileage(slot));
+        }
+        searchIndex.addFrom(store, first);
+    }
+
+    /**
+     * Removes the car with the given VIN, if present.
+     */
+    private void remove(String vin) {
+        int slot = store.slotOfVin(vin);
+        if (slot >= 0) {
+            removeSlot(slot);
+        }
+    }
+
+    /**
+     * Removes the car in a live slot, as found by the VIN index. The slot
+     * is tombstoned in place, so nothing is scanned or shifted.
+     */
+    private void removeSlot(int slot) {
+        Car removed = listeners.isEmpty() ? null : store.get(slot);
+        stats.remove(store.year(slot), store.mileage(slot));
+        searchIndex.remove(store, slot);
+        store.remove(slot);
+        if (removed != null) {
+            changes.add(RegistryEvent.deleted(removed, store.version()));
+        }
+    }
+
+    /**
+     * Queues the events of the operation that is finishing, while the write
+     * lock is still held, so the queue is in the order operations were made.
+     */
+    private void queueChanges() {
+        if (changes.isEmpty()) {
+            return;
+        }
+        outbox.add(Collections.unmodifiableList(new ArrayList<>(changes)));
+        changes.clear();
+    }
+
+    /**
+     * Sends queued events to every listener, after the write lock has been
+     * released. If another thread is already sending, it sends these too,
+     * so operations are still delivered one at a time and in order.
+     * A listener that throws does not stop the others or fail the operation.
+     */
+    private void publishChanges() {
+        while (!outbox.isEmpty() && publishing.compareAndSet(false, true)) {
+            try {
+                List<RegistryEvent> events;
+                while ((events = outbox.poll()) != null) {
+                    for (RegistryListener listener : listeners) {
+                        try {
+                            listener.registryChanged(events);
+                        } catch (RuntimeException e) {
+                            System.err.println("Registry listener failed: " + e);
+                        }
+                    }
+                }
+            } finally {
+                publishing.set(false);
+            }
+        }
+    }
+
+    /**
+     * Starts the compactions that are due, all of which run on the
+     * COMPACTOR thread:
+     *  - the store is packed once most of its slots are dead; slot numbers
+     *    change when it runs (see CarStore.compactions());
+     *  - the journal is rewritten as a snapshot once it has grown large.
+     *    Only the journal rotation and taking a frozen store copy happen
+     *    here, under the write lock; the snapshot is written from the copy
+     *    while registrations carry on.
+     */
+    private void scheduleCompaction() throws IOException {
+        if (journal != null && journal.needsCompaction(store.size())) {
+            journal.rotate();
+            CarStore frozen = store.snapshot();
+            COMPACTOR.execute(() -> {
+                try {
+                    journal.writeSnapshot(frozen);
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Could not compact vehicle journal (finished on next start): " + e);
+                } finally {
+                    frozen.release();
+                }
+            });
+        }
+        if (store.isSparse() && compactionQueued.compareAndSet(false, true)) {
+            COMPACTOR.execute(() -> {
+                lock.writeLock().lock();
+                try {
+                    compactionQueued.set(false);
+                    if (store.isSparse()) {
+                        searchIndex.renumber(store.compact());
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
         }
-        return false; // VIN not found
     }
 }
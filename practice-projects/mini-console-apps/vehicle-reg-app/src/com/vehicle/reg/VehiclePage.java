@@ -0,0 +1,42 @@
+package com.vehicle.reg;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * -----------------------------------------------------------------------------
+ * VehiclePage.java
+ *
+ * One page of vehicles in VIN order, from VehicleManager.getPage(). Pages
+ * are keyed by the last VIN shown (keyset paging), so vehicles added or
+ * deleted between two calls never make the next page skip or repeat rows.
+ * -----------------------------------------------------------------------------
+ */
+public class VehiclePage {
+
+    private final List<Car> cars;
+    private final String nextCursor;
+
+    VehiclePage(List<Car> cars, String nextCursor) {
+        this.cars = Collections.unmodifiableList(cars);
+        this.nextCursor = nextCursor;
+    }
+
+    /** Returns the vehicles on this page, in ascending VIN order. */
+    public List<Car> getCars() {
+        return cars;
+    }
+
+    /**
+     * Returns the cursor to pass to getPage() for the following page
+     * (the last VIN on this one), or null if this is the last page.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /** Returns true if more vehicles follow this page. */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
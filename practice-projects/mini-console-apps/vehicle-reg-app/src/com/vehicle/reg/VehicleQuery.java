@@ -0,0 +1,283 @@
+package com.vehicle.reg;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.IntConsumer;
+
+/**
+ * -----------------------------------------------------------------------------
+ * VehicleQuery.java
+ *
+ * Filtered listing of the registry, for questions such as "all vehicles
+ * built 2010-2015 with over 200,000 km":
+ *
+ *   new VehicleQuery(manager).yearBetween(2010, 2015).minMileage(200_001)
+ *
+ * Each condition maps to a secondary index in the store (year, make, model,
+ * mileage band). The query starts from the index with the fewest candidate
+ * slots and checks the remaining conditions on each candidate against the
+ * store's columns, which is a few array reads. So the work depends on the
+ * size of the smallest matching index entry, not on the size of the fleet.
+ *
+ * Results come back in registration order. An iterator shows the registry
+ * as it was when it was created: the matching slots are found under one
+ * read lock, together with a RegistrySnapshot, and the vehicles are then
+ * read from the snapshot without locking. Adds, deletes and compactions
+ * made while iterating are not seen and do not disturb it. The snapshot
+ * is released once the iterator reaches the end (or is garbage collected).
+ * -----------------------------------------------------------------------------
+ */
+public class VehicleQuery implements Iterable<Car> {
+
+    // Initial capacity of result lists
+    private static final int BATCH_SIZE = 256;
+
+    private final VehicleManager manager;
+
+    private int yearFrom = Integer.MIN_VALUE;
+    private int yearTo = Integer.MAX_VALUE;
+    private int mileageMin = Integer.MIN_VALUE;
+    private int mileageMax = Integer.MAX_VALUE;
+    private String make;
+    private String model;
+
+    public VehicleQuery(VehicleManager manager) {
+        this.manager = manager;
+    }
+
+    /** Keeps vehicles built from one year to another (inclusive). */
+    public VehicleQuery yearBetween(int from, int to) {
+        yearFrom = from;
+        yearTo = to;
+        return this;
+    }
+
+    /** Keeps vehicles whose mileage is within min..max km (inclusive). */
+    public VehicleQuery mileageBetween(int min, int max) {
+        mileageMin = min;
+        mileageMax = max;
+        return this;
+    }
+
+    /** Keeps vehicles with at least this many km. */
+    public VehicleQuery minMileage(int min) {
+        mileageMin = min;
+        return this;
+    }
+
+    /** Keeps vehicles of this make (case-insensitive). */
+    public VehicleQuery make(String make) {
+        this.make = make;
+        return this;
+    }
+
+    /** Keeps vehicles of this model (case-insensitive). */
+    public VehicleQuery model(String model) {
+        this.model = model;
+        return this;
+    }
+
+    /**
+     * Counts matching vehicles without creating any Car objects.
+     */
+    public int count() {
+        int[] count = {0};
+        manager.readStore(store -> scan(store, 0, Integer.MAX_VALUE, slot -> count[0]++));
+        return count[0];
+    }
+
+    /**
+     * Returns copies of the first matching vehicles, in registration order.
+     *
+     * @param limit maximum number of vehicles to return
+     */
+    public List<Car> list(int limit) {
+        List<Car> cars = new ArrayList<>(Math.min(limit, BATCH_SIZE));
+        manager.readStore(store -> scan(store, 0, limit, slot -> cars.add(store.get(slot))));
+        return cars;
+    }
+
+    /**
+     * Returns the matching vehicles as of now, creating each Car (a copy)
+     * as it is reached.
+     */
+    @Override
+    public Iterator<Car> iterator() {
+        return new SnapshotIterator();
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    /**
+     * Visits up to max matching live slots starting at fromSlot, in slot
+     * order. Caller holds the read lock.
+     *
+     * @return the slot to resume from, or -1 if there are no more matches
+     */
+    private int scan(CarStore store, int fromSlot, int max, IntConsumer visitor) {
+        int makeCode = make == null ? -1 : store.makeCodeOf(make);
+        int modelCode = model == null ? -1 : store.modelCodeOf(model);
+        if ((make != null && makeCode < 0) || (model != null && modelCode < 0)) {
+            return -1; // no vehicle has ever had this make or model
+        }
+
+        // Pick the index entry with the fewest candidates
+        List<PostingIndex.Postings> driver = null;
+        long driverSize = Long.MAX_VALUE;
+        List<List<PostingIndex.Postings>> choices = new ArrayList<>(4);
+        if (yearFrom != Integer.MIN_VALUE || yearTo != Integer.MAX_VALUE) {
+            choices.add(store.yearIndex().range(yearFrom, yearTo));
+        }
+        if (mileageMin != Integer.MIN_VALUE || mileageMax != Integer.MAX_VALUE) {
+            choices.add(store.mileageIndex().range(Math.floorDiv(mileageMin, CarStore.MILEAGE_BAND),
+                    Math.floorDiv(mileageMax, CarStore.MILEAGE_BAND)));
+        }
+        if (make != null) {
+            choices.add(store.makeIndex().range(makeCode, makeCode));
+        }
+        if (model != null) {
+            choices.add(store.modelIndex().range(modelCode, modelCode));
+        }
+        for (List<PostingIndex.Postings> choice : choices) {
+            long size = 0;
+            for (PostingIndex.Postings postings : choice) {
+                size += postings.size();
+            }
+            if (size < driverSize) {
+                driver = choice;
+                driverSize = size;
+            }
+        }
+
+        int found = 0;
+        if (driver == null) {
+            // No conditions: every live slot matches
+            for (int slot = fromSlot; slot < store.slotCount(); slot++) {
+                if (store.isLive(slot)) {
+                    if (found == max) {
+                        return slot;
+                    }
+                    visitor.accept(slot);
+                    found++;
+                }
+            }
+            return -1;
+        }
+
+        // Merge the driver's slot lists in ascending order
+        PriorityQueue<int[]> cursors = new PriorityQueue<>(Math.max(1, driver.size()),
+                (a, b) -> Integer.compare(a[0], b[0]));
+        for (int i = 0; i < driver.size(); i++) {
+            PostingIndex.Postings postings = driver.get(i);
+            int position = postings.firstAtLeast(fromSlot);
+            if (position < postings.size()) {
+                cursors.add(new int[] {postings.get(position), i, position});
+            }
+        }
+        while (!cursors.isEmpty()) {
+            int[] cursor = cursors.poll();
+            int slot = cursor[0];
+            if (store.isLive(slot) && matches(store, slot, makeCode, modelCode)) {
+                if (found == max) {
+                    return slot;
+                }
+                visitor.accept(slot);
+                found++;
+            }
+            PostingIndex.Postings postings = driver.get(cursor[1]);
+            if (++cursor[2] < postings.size()) {
+                cursor[0] = postings.get(cursor[2]);
+                cursors.add(cursor);
+            }
+        }
+        return -1;
+    }
+
+    private boolean matches(CarStore store, int slot, int makeCode, int modelCode) {
+        int year = store.year(slot);
+        int mileage = store.mileage(slot);
+        return year >= yearFrom && year <= yearTo
+                && mileage >= mileageMin && mileage <= mileageMax
+                && (makeCode < 0 || store.makeCode(slot) == makeCode)
+                && (modelCode < 0 || store.modelCode(slot) == modelCode);
+    }
+
+    // =======================
+    // Lazy iteration
+    // =======================
+
+    /**
+     * Reads the slots that matched when it was created from a snapshot
+     * taken at the same time, so slot numbers stay valid however the live
+     * store changes. With no conditions it walks the snapshot's live slots
+     * instead of listing them.
+     */
+    private class SnapshotIterator implements Iterator<Car> {
+
+        private RegistrySnapshot snapshot;
+        private final CarStore frozen;
+        private final boolean everySlot = yearFrom == Integer.MIN_VALUE && yearTo == Integer.MAX_VALUE
+                && mileageMin == Integer.MIN_VALUE && mileageMax == Integer.MAX_VALUE
+                && make == null && model == null;
+        private int[] slots = new int[BATCH_SIZE];
+        private int count;
+        private int position;
+
+        SnapshotIterator() {
+            manager.readStore(store -> {
+                snapshot = new RegistrySnapshot(store.snapshot());
+                if (everySlot) {
+                    return;
+                }
+                scan(store, 0, Integer.MAX_VALUE, slot -> {
+                    if (count == slots.length) {
+                        slots = Arrays.copyOf(slots, count * 2);
+                    }
+                    slots[count++] = slot;
+                });
+            });
+            frozen = snapshot.store();
+            if (everySlot) {
+                count = frozen.slotCount();
+                position = nextLive(0);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (position < count) {
+                return true;
+            }
+            if (snapshot != null) {
+                snapshot.close();
+                snapshot = null;
+            }
+            return false;
+        }
+
+        @Override
+        public Car next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (everySlot) {
+                Car car = frozen.get(position);
+                position = nextLive(position + 1);
+                return car;
+            }
+            return frozen.get(slots[position++]);
+        }
+
+        private int nextLive(int from) {
+            int slot = from;
+            while (slot < count && !frozen.isLive(slot)) {
+                slot++;
+            }
+            return slot;
+        }
+    }
+}
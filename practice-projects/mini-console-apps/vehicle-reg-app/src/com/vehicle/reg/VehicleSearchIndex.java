@@ -0,0 +1,404 @@
+package com.vehicle.reg;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * -----------------------------------------------------------------------------
+ * VehicleSearchIndex.java
+ *
+ * Partial and near-miss lookup by VIN or plate, for clerks who only have
+ * part of a plate or a VIN with one mistyped character.
+ *
+ * Two sorted lists of slot numbers, one in VIN order and one in plate
+ * order, answer prefix queries and paging with a range scan. They are
+ * compared on the store's fixed-width column bytes, so no key is copied
+ * into a String; each list is a run of int[] chunks of up to CHUNK slots,
+ * so an insert or delete shifts at most one chunk. Near misses are found
+ * by generating every string one edit away from the query (one character
+ * changed, dropped, added, or two adjacent characters swapped) and probing
+ * the store's exact hash indexes, which is a few thousand constant-time
+ * lookups rather than a scan.
+ *
+ * Results are ranked: exact match, then one-edit matches, then prefix
+ * matches in alphabetical order.
+ *
+ * Slot numbers change when the store is compacted; renumber() must be
+ * called with the mapping compact() returns. Not thread-safe;
+ * VehicleManager updates it under its write lock.
+ * -----------------------------------------------------------------------------
+ */
+class VehicleSearchIndex {
+
+    // Characters tried when generating near misses
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
+    // Slots per chunk of a sorted list; a full chunk is split in two
+    private static final int CHUNK = 512;
+
+    private final SlotList vins = new SlotList(true);
+    private final SlotList plates = new SlotList(false);
+
+    /** Indexes a newly stored slot. */
+    void add(CarStore store, int slot) {
+        vins.add(store, slot);
+        plates.add(store, slot);
+    }
+
+    /**
+     * Indexes the slots from first up to the end of the store, e.g. after a
+     * bulk load. Into an empty index this sorts once instead of inserting
+     * one by one.
+     */
+    void addFrom(CarStore store, int first) {
+        vins.addFrom(store, first);
+        plates.addFrom(store, first);
+    }
+
+    /** Unindexes a slot; call before the store forgets it. */
+    void remove(CarStore store, int slot) {
+        vins.remove(store, slot);
+        plates.remove(store, slot);
+    }
+
+    /**
+     * Applies the slot numbers given out by CarStore.compact(). Compaction
+     * keeps the slots' order, so the lists stay sorted.
+     */
+    void renumber(int[] renumbered) {
+        vins.renumber(renumbered);
+        plates.renumber(renumbered);
+    }
+
+    /**
+     * Returns the approximate heap used by the sorted lists, in bytes: one
+     * int array of CHUNK slots per chunk.
+     */
+    long estimatedBytes() {
+        return vins.estimatedBytes() + plates.estimatedBytes();
+    }
+
+    /**
+     * Fills slots with the vehicles that follow a VIN in VIN order.
+     *
+     * @param after VIN to continue after (case-insensitive), or null to
+     *              start at the beginning
+     * @return how many slots were written, at most slots.length
+     */
+    int vinsAfter(CarStore store, CharSequence after, int[] slots) {
+        return vins.after(store, after, slots);
+    }
+
+    /**
+     * Finds slots whose VIN or plate matches the query exactly, within one
+     * edit, or starts with it.
+     *
+     * @param store store holding the exact VIN and plate hash indexes
+     * @param query full or partial VIN or plate (case-insensitive)
+     * @param limit maximum number of slots to return
+     * @return matching slots, best match first, without duplicates
+     */
+    List<Integer> search(CarStore store, String query, int limit) {
+        String key = query.trim().toUpperCase(Locale.ROOT);
+        Set<Integer> hits = new LinkedHashSet<>();
+        if (key.isEmpty() || limit <= 0) {
+            return new ArrayList<>(hits);
+        }
+
+        // 1. Exact match
+        addIfFound(hits, store.slotOfVin(key));
+        addIfFound(hits, store.slotOfPlate(key));
+
+        // 2. One edit away
+        if (hits.size() < limit) {
+            nearMisses(store, key, hits, limit);
+        }
+
+        // 3. Prefix matches
+        vins.addPrefixMatches(store, key, hits, limit);
+        plates.addPrefixMatches(store, key, hits, limit);
+
+        List<Integer> ranked = new ArrayList<>(hits);
+        return ranked.size() > limit ? ranked.subList(0, limit) : ranked;
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    private static void nearMisses(CarStore store, String key, Set<Integer> hits, int limit) {
+        StringBuilder probe = new StringBuilder(key.length() + 1);
+
+        // Substitute one character
+        for (int i = 0; i < key.length() && hits.size() < limit; i++) {
+            probe.setLength(0);
+            probe.append(key);
+            for (int a = 0; a < ALPHABET.length(); a++) {
+                char c = ALPHABET.charAt(a);
+                if (c != key.charAt(i)) {
+                    probe.setCharAt(i, c);
+                    probeBoth(store, probe, hits);
+                }
+            }
+        }
+
+        // Drop one character
+        for (int i = 0; i < key.length() && hits.size() < limit; i++) {
+            probe.setLength(0);
+            probe.append(key, 0, i).append(key, i + 1, key.length());
+            probeBoth(store, probe, hits);
+        }
+
+        // Insert one character
+        for (int i = 0; i <= key.length() && hits.size() < limit; i++) {
+            probe.setLength(0);
+            probe.append(key, 0, i).append(' ').append(key, i, key.length());
+            for (int a = 0; a < ALPHABET.length(); a++) {
+                probe.setCharAt(i, ALPHABET.charAt(a));
+                probeBoth(store, probe, hits);
+            }
+        }
+
+        // Swap two neighbouring characters
+        for (int i = 0; i + 1 < key.length() && hits.size() < limit; i++) {
+            if (key.charAt(i) != key.charAt(i + 1)) {
+                probe.setLength(0);
+                probe.append(key);
+                probe.setCharAt(i, key.charAt(i + 1));
+                probe.setCharAt(i + 1, key.charAt(i));
+                probeBoth(store, probe, hits);
+            }
+        }
+    }
+
+    private static void probeBoth(CarStore store, CharSequence probe, Set<Integer> hits) {
+        if (probe.length() == CarStore.VIN_WIDTH) {
+            addIfFound(hits, store.slotOfVin(probe));
+        } else if (probe.length() <= CarStore.PLATE_WIDTH) {
+            addIfFound(hits, store.slotOfPlate(probe));
+        }
+    }
+
+    private static void addIfFound(Set<Integer> hits, int slot) {
+        if (slot >= 0) {
+            hits.add(slot);
+        }
+    }
+
+    // =======================
+    // Sorted slot list
+    // =======================
+
+    /**
+     * Slots sorted by VIN or by plate, as chunks of up to CHUNK slots. The
+     * first slot of each chunk routes a lookup to its chunk, then a binary
+     * search finds the position inside it. Live keys are unique, so the key
+     * alone orders the slots.
+     */
+    private static final class SlotList {
+
+        private final boolean byVin;
+        private int[][] chunks = new int[0][];
+        private int[] sizes = new int[0];
+        private int chunkCount;
+
+        SlotList(boolean byVin) {
+            this.byVin = byVin;
+        }
+
+        void add(CarStore store, int slot) {
+            if (chunkCount == 0) {
+                insertChunk(0, new int[CHUNK], 0);
+            }
+            int c = chunkOf(store, slot);
+            int[] chunk = chunks[c];
+            int at = -(search(store, chunk, sizes[c], slot) + 1);
+            System.arraycopy(chunk, at, chunk, at + 1, sizes[c] - at);
+            chunk[at] = slot;
+            if (++sizes[c] == CHUNK) {
+                int[] upper = new int[CHUNK];
+                int half = CHUNK / 2;
+                System.arraycopy(chunk, half, upper, 0, CHUNK - half);
+                sizes[c] = half;
+                insertChunk(c + 1, upper, CHUNK - half);
+            }
+        }
+
+        void addFrom(CarStore store, int first) {
+            int count = store.slotCount() - first;
+            if (chunkCount > 0 || count <= 0) {
+                for (int slot = first; slot < store.slotCount(); slot++) {
+                    if (store.isLive(slot)) {
+                        add(store, slot);
+                    }
+                }
+                return;
+            }
+            int[] sorted = new int[count];
+            int live = 0;
+            for (int slot = first; slot < store.slotCount(); slot++) {
+                if (store.isLive(slot)) {
+                    sorted[live++] = slot;
+                }
+            }
+            CarStore.sortSlots(sorted, live, byVin ? store::compareVins : store::comparePlates);
+            // Leave room in each chunk so the next inserts don't all split
+            int fill = CHUNK * 3 / 4;
+            for (int from = 0; from < live; from += fill) {
+                int n = Math.min(fill, live - from);
+                int[] chunk = new int[CHUNK];
+                System.arraycopy(sorted, from, chunk, 0, n);
+                insertChunk(chunkCount, chunk, n);
+            }
+        }
+
+        void remove(CarStore store, int slot) {
+            if (chunkCount == 0) {
+                return;
+            }
+            int c = chunkOf(store, slot);
+            int at = search(store, chunks[c], sizes[c], slot);
+            if (at < 0 || chunks[c][at] != slot) {
+                return;
+            }
+            System.arraycopy(chunks[c], at + 1, chunks[c], at, sizes[c] - at - 1);
+            if (--sizes[c] == 0) {
+                System.arraycopy(chunks, c + 1, chunks, c, chunkCount - c - 1);
+                System.arraycopy(sizes, c + 1, sizes, c, chunkCount - c - 1);
+                chunks[--chunkCount] = null;
+            }
+        }
+
+        void renumber(int[] renumbered) {
+            for (int c = 0; c < chunkCount; c++) {
+                int[] chunk = chunks[c];
+                for (int i = 0; i < sizes[c]; i++) {
+                    chunk[i] = renumbered[chunk[i]];
+                }
+            }
+        }
+
+        long estimatedBytes() {
+            return chunkCount * (16L + 4L * CHUNK + 8 + 4);
+        }
+
+        int after(CarStore store, CharSequence key, int[] into) {
+            int c = 0;
+            int i = 0;
+            if (key != null) {
+                c = firstChunkAbove(store, key, false);
+                i = c < chunkCount ? firstAbove(store, c, key, false) : 0;
+            }
+            int n = 0;
+            for (; c < chunkCount && n < into.length; c++, i = 0) {
+                int take = Math.min(sizes[c] - i, into.length - n);
+                System.arraycopy(chunks[c], i, into, n, take);
+                n += take;
+            }
+            return n;
+        }
+
+        void addPrefixMatches(CarStore store, String prefix, Set<Integer> hits, int limit) {
+            int c = firstChunkAbove(store, prefix, true);
+            int i = c < chunkCount ? firstAbove(store, c, prefix, true) : 0;
+            for (; c < chunkCount; c++, i = 0) {
+                for (; i < sizes[c]; i++) {
+                    int slot = chunks[c][i];
+                    if (hits.size() >= limit
+                            || !(byVin ? store.vinStartsWith(slot, prefix) : store.plateStartsWith(slot, prefix))) {
+                        return;
+                    }
+                    hits.add(slot);
+                }
+            }
+        }
+
+        // Chunk whose range holds the slot's key: the last one starting at
+        // or before it, or the first chunk
+        private int chunkOf(CarStore store, int slot) {
+            int low = 1;
+            int high = chunkCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (compare(store, chunks[mid][0], slot) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return low - 1;
+        }
+
+        // Position of the slot's key in a chunk, or -(insertion point + 1)
+        private int search(CarStore store, int[] chunk, int size, int slot) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = compare(store, chunk[mid], slot);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        // First chunk whose last key is above the text (at or above it
+        // when inclusive), or chunkCount if there is none
+        private int firstChunkAbove(CarStore store, CharSequence text, boolean inclusive) {
+            int low = 0;
+            int high = chunkCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (above(store, chunks[mid][sizes[mid] - 1], text, inclusive)) {
+                    high = mid - 1;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return low;
+        }
+
+        private int firstAbove(CarStore store, int c, CharSequence text, boolean inclusive) {
+            int low = 0;
+            int high = sizes[c] - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (above(store, chunks[c][mid], text, inclusive)) {
+                    high = mid - 1;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return low;
+        }
+
+        private boolean above(CarStore store, int slot, CharSequence text, boolean inclusive) {
+            int cmp = byVin ? store.compareVinTo(slot, text) : store.comparePlateTo(slot, text);
+            return inclusive ? cmp >= 0 : cmp > 0;
+        }
+
+        private int compare(CarStore store, int a, int b) {
+            return byVin ? store.compareVins(a, b) : store.comparePlates(a, b);
+        }
+
+        private void insertChunk(int c, int[] chunk, int size) {
+            if (chunkCount == chunks.length) {
+                int grown = Math.max(8, chunkCount * 2);
+                chunks = Arrays.copyOf(chunks, grown);
+                sizes = Arrays.copyOf(sizes, grown);
+            }
+            System.arraycopy(chunks, c, chunks, c + 1, chunkCount - c);
+            System.arraycopy(sizes, c, sizes, c + 1, chunkCount - c);
+            chunks[c] = chunk;
+            sizes[c] = size;
+            chunkCount++;
+        }
+    }
+}
@@ -0,0 +1,513 @@
+package com.vehicle.reg;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntFunction;
+
+/**
+ * -----------------------------------------------------------------------------
+ * VehicleTableModel.java
+ *
+ * Table model that reads vehicles from the registry only when the JTable
+ * asks for a row, so the table opens instantly however large the fleet.
+ *
+ * The model holds a RegistrySnapshot and an int[] of its slots in display
+ * order (4 bytes per vehicle). Visible rows are read from the snapshot a
+ * page at a time, without any lock, and kept in a small page cache. The
+ * snapshot's slot numbers never change, so rows stay valid however the
+ * registry is compacted meanwhile.
+ *
+ * Building the slot list (filter and sort) runs on a SwingWorker against
+ * a new snapshot; the table keeps showing the old rows until the new list
+ * is ready. Nothing is scanned under the registry lock or on the EDT.
+ *
+ * As a RegistryListener (wrapped in an EdtEventBatcher) the model follows
+ * changes while open: a worker takes a new snapshot, drops deleted vehicles
+ * from the slot list and merges new ones into place under the current
+ * filter and sort. If the registry renumbered its slots in between, the
+ * list is rebuilt instead. Call close() when the table is discarded.
+ * -----------------------------------------------------------------------------
+ */
+public class VehicleTableModel extends AbstractTableModel implements RegistryListener {
+
+    /** Column headers, in display order */
+    public static final String[] COLUMNS = {"Make", "Model", "VIN", "Plate", "Mileage (km)", "Year"};
+
+    // Column positions
+    private static final int MAKE = 0;
+    private static final int MODEL = 1;
+    private static final int VIN = 2;
+    private static final int PLATE = 3;
+    private static final int MILEAGE = 4;
+    private static final int YEAR = 5;
+
+    // Rows fetched together, and pages kept in memory
+    private static final int PAGE_SIZE = 128;
+    private static final int MAX_CACHED_PAGES = 32;
+
+    private final VehicleManager manager;
+
+    // Snapshot being shown, and its slots in display order
+    private RegistrySnapshot snapshot;
+    private int[] slots = new int[0];
+
+    // Page number -> rows (null entries are vehicles deleted since loading)
+    private final Map<Integer, Car[]> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Car[]> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+
+    // Current view settings, and a counter so older loads are discarded
+    private String filter = "";
+    private int sortColumn = -1;
+    private boolean ascending = true;
+    private int generation;
+    private boolean loading;
+    private boolean changedWhileLoading;
+    private boolean closed;
+    private Runnable onLoaded = () -> { };
+
+    public VehicleTableModel(VehicleManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * Sets code to run on the EDT each time a new row list is shown.
+     */
+    public void setOnLoaded(Runnable onLoaded) {
+        this.onLoaded = onLoaded;
+    }
+
+    /**
+     * Rebuilds the row list in the background.
+     *
+     * @param filter     text that the make, model, VIN or plate must contain
+     *                   (case-insensitive); empty shows every vehicle
+     * @param sortColumn column to sort by, or -1 for registration order
+     * @param ascending  sort direction
+     */
+    public void load(String filter, int sortColumn, boolean ascending) {
+        this.filter = filter == null ? "" : filter.trim();
+        this.sortColumn = sortColumn;
+        this.ascending = ascending;
+        String text = this.filter.toUpperCase(Locale.ROOT);
+        refresh(store -> buildView(store, text, sortColumn, ascending), false);
+    }
+
+    /**
+     * Releases the snapshot behind the rows. Call once the table is no
+     * longer shown; the model shows no rows afterwards.
+     */
+    public void close() {
+        closed = true;
+        generation++; // discard any load still running
+        if (snapshot != null) {
+            snapshot.close();
+            snapshot = null;
+        }
+        slots = new int[0];
+        pages.clear();
+        fireTableDataChanged();
+    }
+
+    /**
+     * Applies registry changes to the row list. Must run on the EDT, which
+     * EdtEventBatcher takes care of.
+     */
+    @Override
+    public void registryChanged(List<RegistryEvent> events) {
+        if (closed) {
+            return;
+        }
+        if (loading) {
+            changedWhileLoading = true;
+            return;
+        }
+        if (snapshot == null) {
+            return; // the first load failed; nothing to update
+        }
+        boolean removed = false;
+        for (RegistryEvent event : events) {
+            removed |= event.getType() != RegistryEvent.Type.ADDED;
+        }
+        applyChanges(removed);
+    }
+
+    /**
+     * Too many changes to merge one by one: rebuilds the row list.
+     */
+    @Override
+    public void registryReset() {
+        if (!closed) {
+            load(filter, sortColumn, ascending);
+        }
+    }
+
+    /** Returns the current filter text. */
+    public String getFilter() {
+        return filter;
+    }
+
+    /** Returns the sorted column, or -1 for registration order. */
+    public int getSortColumn() {
+        return sortColumn;
+    }
+
+    /** Returns true if sorted in ascending order. */
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    @Override
+    public int getRowCount() {
+        return slots.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == MILEAGE || column == YEAR ? Integer.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Car car = rowAt(row);
+        switch (column) {
+            case MAKE: return car.getMake();
+            case MODEL: return car.getModel();
+            case VIN: return car.getVin();
+            case PLATE: return car.getPlateNumber();
+            case MILEAGE: return car.getMileage();
+            default: return car.getYear();
+        }
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    /**
+     * Builds a new slot list on a worker from a fresh snapshot, then shows
+     * it. Starting another refresh discards this one's result.
+     *
+     * @param build       computes the slot list from the snapshot's store
+     * @param incremental true if the list extends the one shown, so rows
+     *                    appended at the end can be announced as such
+     */
+    private void refresh(Function<CarStore, int[]> build, boolean incremental) {
+        if (closed) {
+            return;
+        }
+        int requested = ++generation;
+        loading = true;
+        changedWhileLoading = false;
+
+        new SwingWorker<int[], Void>() {
+            private RegistrySnapshot taken;
+
+            @Override
+            protected int[] doInBackground() {
+                taken = manager.snapshot();
+                return build.apply(taken.store());
+            }
+
+            @Override
+            protected void done() {
+                if (requested != generation) {
+                    closeTaken(); // a newer load has been started
+                    return;
+                }
+                loading = false;
+                try {
+                    show(taken, get(), incremental);
+                } catch (InterruptedException e) {
+                    closeTaken();
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    closeTaken();
+                    JOptionPane.showMessageDialog(null, "Could not load vehicles: " + e.getCause(),
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                }
+                if (changedWhileLoading && snapshot != null) {
+                    applyChanges(true);
+                }
+            }
+
+            private void closeTaken() {
+                if (taken != null) {
+                    taken.close();
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Switches to a new snapshot and slot list, releasing the old snapshot.
+     */
+    private void show(RegistrySnapshot next, int[] nextSlots, boolean incremental) {
+        int[] old = slots;
+        RegistrySnapshot previous = snapshot;
+        snapshot = next;
+        slots = nextSlots;
+        if (previous != null) {
+            previous.close();
+        }
+        if (incremental && nextSlots == old) {
+            return; // nothing visible changed
+        }
+        int oldCount = old.length;
+        if (incremental && nextSlots.length > oldCount
+                && Arrays.equals(old, 0, oldCount, nextSlots, 0, oldCount)) {
+            pages.remove(oldCount / PAGE_SIZE); // last page may have been partial
+            fireTableRowsInserted(oldCount, nextSlots.length - 1);
+        } else {
+            pages.clear();
+            fireTableDataChanged();
+        }
+        onLoaded.run();
+    }
+
+    /**
+     * Brings the slot list up to date with the registry: drops slots that
+     * are no longer live (if anything may have been deleted) and merges in
+     * the matching vehicles stored since the shown snapshot. Rebuilds the
+     * list if the registry has renumbered its slots since.
+     */
+    private void applyChanges(boolean removed) {
+        int[] list = slots;
+        int shownCompactions = snapshot.store().compactions();
+        int shownSlots = snapshot.store().slotCount();
+        String text = filter.toUpperCase(Locale.ROOT);
+        int column = sortColumn;
+        boolean ascending = this.ascending;
+        refresh(store -> {
+            if (store.compactions() != shownCompactions) {
+                return buildView(store, text, column, ascending);
+            }
+            int[] kept = removed ? dropDeleted(store, list) : list;
+
+            boolean[] makeMatches = matchCodes(store.makeCount(), text, store::decodeMake);
+            boolean[] modelMatches = matchCodes(store.modelCount(), text, store::decodeModel);
+            int[] added = new int[store.slotCount() - shownSlots];
+            int count = 0;
+            for (int slot = shownSlots; slot < store.slotCount(); slot++) {
+                if (store.isLive(slot) && matches(store, slot, text, makeMatches, modelMatches)) {
+                    added[count++] = slot;
+                }
+            }
+            return count == 0 ? kept : merge(store, column, ascending, kept, added, count);
+        }, true);
+    }
+
+    /** Returns the list without dead slots (the same array if none died). */
+    private static int[] dropDeleted(CarStore store, int[] list) {
+        int[] live = new int[list.length];
+        int count = 0;
+        for (int slot : list) {
+            if (store.isLive(slot)) {
+                live[count++] = slot;
+            }
+        }
+        return count == list.length ? list : Arrays.copyOf(live, count);
+    }
+
+    /**
+     * Merges new slots into the ordered list. The new slots are sorted and
+     * each one's position found by binary search, so the existing rows are
+     * compared only O(added * log rows) times.
+     */
+    private static int[] merge(CarStore store, int column, boolean ascending,
+                               int[] list, int[] added, int count) {
+        if (column < 0) {
+            int[] merged = Arrays.copyOf(list, list.length + count);
+            System.arraycopy(added, 0, merged, list.length, count);
+            return merged; // registration order: new slots come last
+        }
+        int[] makeRank = column == MAKE ? rankCodes(store.makeCount(), store::decodeMake) : null;
+        int[] modelRank = column == MODEL ? rankCodes(store.modelCount(), store::decodeModel) : null;
+        IntBinaryOperator order = (a, b) -> compareSlots(store, column, ascending, a, b, makeRank, modelRank);
+        CarStore.sortSlots(added, count, order);
+
+        int[] merged = new int[list.length + count];
+        int from = 0;
+        int out = 0;
+        for (int i = 0; i < count; i++) {
+            int slot = added[i];
+            int low = from;
+            int high = list.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (order.applyAsInt(list[mid], slot) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            System.arraycopy(list, from, merged, out, low - from);
+            out += low - from;
+            merged[out++] = slot;
+            from = low;
+        }
+        System.arraycopy(list, from, merged, out, list.length - from);
+        return merged;
+    }
+
+    /**
+     * Compares two slots in display order, matching buildView(): by the
+     * sort column, then by slot, reversed when descending.
+     */
+    private static int compareSlots(CarStore store, int column, boolean ascending, int a, int b,
+                                    int[] makeRank, int[] modelRank) {
+        int c;
+        switch (column) {
+            case MAKE: c = Integer.compare(makeRank[store.makeCode(a)], makeRank[store.makeCode(b)]); break;
+            case MODEL: c = Integer.compare(modelRank[store.modelCode(a)], modelRank[store.modelCode(b)]); break;
+            case VIN: c = store.compareVins(a, b); break;
+            case PLATE: c = store.comparePlates(a, b); break;
+            case MILEAGE: c = Integer.compare(store.mileage(a), store.mileage(b)); break;
+            default: c = Integer.compare(store.year(a), store.year(b));
+        }
+        if (c == 0) {
+            c = Integer.compare(a, b);
+        }
+        return ascending ? c : -c;
+    }
+
+    private Car rowAt(int row) {
+        int pageNumber = row / PAGE_SIZE;
+        Car[] page = pages.get(pageNumber);
+        if (page == null) {
+            page = fetchPage(pageNumber);
+            pages.put(pageNumber, page);
+        }
+        return page[row % PAGE_SIZE];
+    }
+
+    /**
+     * Reads one page of rows from the shown snapshot.
+     */
+    private Car[] fetchPage(int pageNumber) {
+        CarStore store = snapshot.store();
+        int first = pageNumber * PAGE_SIZE;
+        Car[] page = new Car[Math.min(PAGE_SIZE, slots.length - first)];
+        for (int i = 0; i < page.length; i++) {
+            page[i] = store.get(slots[first + i]);
+        }
+        return page;
+    }
+
+    /**
+     * Builds the filtered, sorted slot list from a snapshot's store. Runs
+     * off the EDT and needs no lock.
+     */
+    private static int[] buildView(CarStore store, String text, int column, boolean ascending) {
+        // Makes/models matching the filter, decided once per distinct value
+        boolean[] makeMatches = matchCodes(store.makeCount(), text, store::decodeMake);
+        boolean[] modelMatches = matchCodes(store.modelCount(), text, store::decodeModel);
+
+        int[] result;
+        if (column == VIN || column == PLATE) {
+            result = sortByKey(store, column == VIN, text, makeMatches, modelMatches);
+        } else {
+            // Alphabetical rank of each make/model code
+            int[] makeRank = column == MAKE ? rankCodes(store.makeCount(), store::decodeMake) : null;
+            int[] modelRank = column == MODEL ? rankCodes(store.modelCount(), store::decodeModel) : null;
+
+            long[] packed = new long[store.size()];
+            int count = 0;
+            for (int slot = 0; slot < store.slotCount(); slot++) {
+                if (!store.isLive(slot) || !matches(store, slot, text, makeMatches, modelMatches)) {
+                    continue;
+                }
+                long key;
+                switch (column) {
+                    case MAKE: key = makeRank[store.makeCode(slot)]; break;
+                    case MODEL: key = modelRank[store.modelCode(slot)]; break;
+                    case MILEAGE: key = store.mileage(slot); break;
+                    case YEAR: key = store.year(slot); break;
+                    default: key = 0; // registration order
+                }
+                packed[count++] = (key << 32) | slot;
+            }
+            if (column >= 0) {
+                Arrays.parallelSort(packed, 0, count);
+            }
+            result = new int[count];
+            for (int i = 0; i < count; i++) {
+                result[i] = (int) packed[i];
+            }
+        }
+        if (column >= 0 && !ascending) {
+            for (int i = 0, j = result.length - 1; i < j; i++, j--) {
+                int swap = result[i];
+                result[i] = result[j];
+                result[j] = swap;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Orders matching slots by VIN or plate, comparing the column bytes
+     * directly (no key Strings, no boxing).
+     */
+    private static int[] sortByKey(CarStore store, boolean byVin, String text,
+                                   boolean[] makeMatches, boolean[] modelMatches) {
+        int[] result = new int[store.size()];
+        int count = 0;
+        for (int slot = 0; slot < store.slotCount(); slot++) {
+            if (store.isLive(slot) && matches(store, slot, text, makeMatches, modelMatches)) {
+                result[count++] = slot;
+            }
+        }
+        CarStore.sortSlots(result, count, byVin ? store::compareVins : store::comparePlates);
+        return Arrays.copyOf(result, count);
+    }
+
+    private static boolean matches(CarStore store, int slot, String text,
+                                   boolean[] makeMatches, boolean[] modelMatches) {
+        return text.isEmpty()
+                || makeMatches[store.makeCode(slot)]
+                || modelMatches[store.modelCode(slot)]
+                || store.vinContains(slot, text)
+                || store.plateContains(slot, text);
+    }
+
+    private static boolean[] matchCodes(int count, String text, IntFunction<String> decode) {
+        boolean[] matches = new boolean[count];
+        for (int code = 0; code < count; code++) {
+            matches[code] = decode.apply(code).toUpperCase(Locale.ROOT).contains(text);
+        }
+        return matches;
+    }
+
+    private static int[] rankCodes(int count, IntFunction<String> decode) {
+        Integer[] codes = new Integer[count];
+        for (int code = 0; code < count; code++) {
+            codes[code] = code;
+        }
+        Arrays.sort(codes, (a, b) -> decode.apply(a).compareToIgnoreCase(decode.apply(b)));
+        int[] rank = new int[count];
+        for (int i = 0; i < count; i++) {
+            rank[codes[i]] = i;
+        }
+        return rank;
+    }
+}
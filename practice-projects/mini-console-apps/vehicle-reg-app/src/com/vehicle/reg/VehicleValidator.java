@@ -0,0 +1,264 @@
+package com.vehicle.reg;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * -----------------------------------------------------------------------------
+ * VehicleValidator.java
+ *
+ * Shared VIN, plate, make/model, year and mileage rules. The console app,
+ * the GUI, bulk imports, batch commands and the HTTP API all check input
+ * with these methods and limits (MAX_NAME_LENGTH, MIN_YEAR, maxYear(),
+ * MAX_MILEAGE) instead of keeping
+ * their own, so every entry point accepts exactly the same input.
+ *
+ * The checks are hand-written character tests rather than regular
+ * expressions: nothing is compiled or allocated per call, which matters
+ * when millions of records are validated during an import.
+ *
+ * Letters are accepted in either case; callers store values upper-cased.
+ * -----------------------------------------------------------------------------
+ */
+public final class VehicleValidator {
+
+    /** Number of characters in a VIN */
+    public static final int VIN_LENGTH = 17;
+
+    /** Number of characters in a GP plate (old or new format) */
+    public static final int PLATE_LENGTH = 8;
+
+    /** Most characters accepted in a make or model */
+    public static final int MAX_NAME_LENGTH = 64;
+
+    /** Oldest manufacture year accepted for a vehicle */
+    public static final int MIN_YEAR = 1900;
+
+    /** Highest mileage (km) accepted for a vehicle */
+    public static final int MAX_MILEAGE = 2_000_000;
+
+    // ISO 3779 check digit weights for each VIN position
+    private static final int[] VIN_WEIGHTS = {8, 7, 6, 5, 4, 3, 2, 10, 0, 9, 8, 7, 6, 5, 4, 3, 2};
+
+    // Numeric value of letters A..Z in a VIN (I, O and Q are never used)
+    private static final int[] LETTER_VALUES = {
+            1, 2, 3, 4, 5, 6, 7, 8, -1, 1, 2, 3, 4, 5, -1, 7, -1, 9, 2, 3, 4, 5, 6, 7, 8, 9
+    };
+
+    // Newest accepted year, and the time (ms) from which it is next year's
+    private static volatile int maxYear;
+    private static volatile long maxYearUntil;
+
+    private VehicleValidator() {
+        // static helpers only
+    }
+
+    // =======================
+    // VIN rules
+    // =======================
+
+    /**
+     * Checks that a VIN is 17 letters or digits, excluding I, O and Q.
+     *
+     * @param vin VIN to check (may be null)
+     * @return true if the VIN is well formed
+     */
+    public static boolean isValidVin(CharSequence vin) {
+        if (vin == null || vin.length() != VIN_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < VIN_LENGTH; i++) {
+            if (vinValue(vin.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Verifies the ISO 3779 check digit in position 9 of a VIN.
+     * Mandatory for North American vehicles but not for every local VIN,
+     * so the registration screens do not require it.
+     *
+     * @param vin VIN to check (may be null)
+     * @return true if the VIN is well formed and its check digit matches
+     */
+    public static boolean hasValidCheckDigit(CharSequence vin) {
+        if (!isValidVin(vin)) {
+            return false;
+        }
+        int sum = 0;
+        for (int i = 0; i < VIN_LENGTH; i++) {
+            sum += vinValue(vin.charAt(i)) * VIN_WEIGHTS[i];
+        }
+        int remainder = sum % 11;
+        char expected = remainder == 10 ? 'X' : (char) ('0' + remainder);
+        return upper(vin.charAt(8)) == expected;
+    }
+
+    // =======================
+    // Plate rules
+    // =======================
+
+    /**
+     * Checks the old GP plate format: three letters, three digits, "GP"
+     * (e.g. ABC123GP).
+     */
+    public static boolean isOldFormatPlate(CharSequence plate) {
+        return plate != null && plate.length() == PLATE_LENGTH
+                && letters(plate, 0, 3) && digits(plate, 3, 6) && isGpSuffix(plate);
+    }
+
+    /**
+     * Checks the new GP plate format: two letters, two digits, two letters,
+     * "GP" (e.g. AB12CDGP).
+     */
+    public static boolean isNewFormatPlate(CharSequence plate) {
+        return plate != null && plate.length() == PLATE_LENGTH
+                && letters(plate, 0, 2) && digits(plate, 2, 4) && letters(plate, 4, 6) && isGpSuffix(plate);
+    }
+
+    /**
+     * Checks that a plate matches either GP format.
+     */
+    public static boolean isValidPlate(CharSequence plate) {
+        return isOldFormatPlate(plate) || isNewFormatPlate(plate);
+    }
+
+    // =======================
+    // Make and model rules
+    // =======================
+
+    /**
+     * Checks that a make or model is at most MAX_NAME_LENGTH characters
+     * (blank values are checked separately).
+     */
+    public static boolean isValidNameLength(String name) {
+        return name == null || name.length() <= MAX_NAME_LENGTH;
+    }
+
+    // =======================
+    // Year and mileage rules
+    // =======================
+
+    /**
+     * Checks that a manufacture year lies between 1900 and next year
+     * (new models are sold before their model year starts).
+     */
+    public static boolean isValidYear(int year) {
+        return year >= MIN_YEAR && year <= maxYear();
+    }
+
+    /**
+     * Returns the newest manufacture year accepted: next year. The value is
+     * cached until New Year, so this allocates nothing; bulk callers can
+     * read it once and pass it to findProblem(Car, int).
+     */
+    public static int maxYear() {
+        if (System.currentTimeMillis() >= maxYearUntil) {
+            refreshMaxYear();
+        }
+        return maxYear;
+    }
+
+    /**
+     * Checks that a mileage lies between 0 and 2,000,000 km.
+     */
+    public static boolean isValidMileage(int mileage) {
+        return mileage >= 0 && mileage <= MAX_MILEAGE;
+    }
+
+    // =======================
+    // Whole vehicle
+    // =======================
+
+    /**
+     * Applies every rule above to a vehicle.
+     *
+     * @return why the vehicle is not acceptable, or null if it is
+     */
+    public static String findProblem(Car car) {
+        return findProblem(car, maxYear());
+    }
+
+    /**
+     * Like findProblem(Car), with the newest accepted year read once by
+     * the caller (from maxYear()) for a whole batch or import.
+     */
+    public static String findProblem(Car car, int maxYear) {
+        if (isBlank(car.getMake()) || isBlank(car.getModel())) {
+            return "Make and model cannot be empty";
+        }
+        if (!isValidNameLength(car.getMake()) || !isValidNameLength(car.getModel())) {
+            return "Make and model must be at most " + MAX_NAME_LENGTH + " characters";
+        }
+        if (!isValidVin(car.getVin())) {
+            return "Invalid VIN: " + car.getVin();
+        }
+        if (!isValidPlate(car.getPlateNumber())) {
+            return "Invalid plate number: " + car.getPlateNumber();
+        }
+        if (!isValidMileage(car.getMileage())) {
+            return "Mileage out of range: " + car.getMileage();
+        }
+        if (car.getYear() < MIN_YEAR || car.getYear() > maxYear) {
+            return "Year out of range: " + car.getYear();
+        }
+        return null;
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    private static synchronized void refreshMaxYear() {
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate today = LocalDate.now(zone);
+        maxYear = today.getYear() + 1;
+        maxYearUntil = today.withDayOfYear(1).plusYears(1).atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    private static boolean isBlank(String text) {
+        return text == null || text.trim().isEmpty();
+    }
+
+    /**
+     * Returns the ISO 3779 value of a VIN character, or -1 if not allowed.
+     */
+    private static int vinValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        int u = upper(c);
+        if (u >= 'A' && u <= 'Z') {
+            return LETTER_VALUES[u - 'A'];
+        }
+        return -1;
+    }
+
+    private static boolean letters(CharSequence text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int u = upper(text.charAt(i));
+            if (u < 'A' || u > 'Z') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean digits(CharSequence text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isGpSuffix(CharSequence plate) {
+        return upper(plate.charAt(6)) == 'G' && upper(plate.charAt(7)) == 'P';
+    }
+
+    private static int upper(char c) {
+        return (c >= 'a' && c <= 'z') ? c - ('a' - 'A') : c;
+    }
+}
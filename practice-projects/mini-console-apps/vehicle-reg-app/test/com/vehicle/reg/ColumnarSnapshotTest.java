@@ -0,0 +1,61 @@
+package com.vehicle.reg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * -----------------------------------------------------------------------------
+ * ColumnarSnapshotTest.java
+ *
+ * Lookups served straight from a mapped snapshot file, without loading it
+ * into a registry.
+ * -----------------------------------------------------------------------------
+ */
+class ColumnarSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void findsVehiclesInPlace() throws IOException {
+        CarStore store = new CarStore();
+        for (int n = 999; n >= 0; n--) {
+            Car car = VehicleJournalTest.car(VehicleJournalTest.vin(n), VehicleJournalTest.plate(n));
+            car.setMileage(n);
+            store.add(car);
+        }
+        store.remove(store.slotOfVin(VehicleJournalTest.vin(500)));
+        Path file = dir.resolve("vehicles.snapshot");
+        ColumnarSnapshot.write(file, store);
+
+        try (ColumnarSnapshot snapshot = ColumnarSnapshot.open(file)) {
+            assertEquals(999, snapshot.size());
+
+            int row = snapshot.indexOfVin(VehicleJournalTest.vin(123).toLowerCase());
+            Car car = snapshot.getCar(row);
+            assertEquals(VehicleJournalTest.vin(123), car.getVin());
+            assertEquals(VehicleJournalTest.plate(123), car.getPlateNumber());
+            assertEquals(123, car.getMileage());
+            assertEquals("Toyota", car.getMake());
+            assertEquals("Corolla", car.getModel());
+
+            assertEquals(-1, snapshot.indexOfVin(VehicleJournalTest.vin(500)));
+            assertEquals(-1, snapshot.indexOfVin(VehicleJournalTest.vin(1000)));
+            assertEquals(row, snapshot.indexOfPlate(VehicleJournalTest.plate(123).toLowerCase()));
+            assertEquals(-1, snapshot.indexOfPlate(VehicleJournalTest.plate(500)));
+            assertEquals(-1, snapshot.indexOfPlate("AAA12"));
+
+            List<String> vins = new ArrayList<>();
+            snapshot.forEachCar(each -> vins.add(each.getVin()));
+            assertEquals(999, vins.size());
+            assertEquals(VehicleJournalTest.vin(0), vins.get(0)); // sorted by VIN
+            assertEquals(VehicleJournalTest.vin(999), vins.get(998));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.vehicle.reg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * -----------------------------------------------------------------------------
+ * PlateDirectoryTest.java
+ *
+ * Plate claims must survive a restart exactly as they were acknowledged,
+ * including across the rewrite of a log that has grown too long.
+ * -----------------------------------------------------------------------------
+ */
+class PlateDirectoryTest {
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void claimsSurviveRestart() throws IOException {
+        try (PlateDirectory plates = new PlateDirectory(dataDir)) {
+            assertEquals(PlateDirectory.Result.CLAIMED, plates.claim("abc123gp", "vin1", null));
+            assertEquals(PlateDirectory.Result.ALREADY_HELD, plates.claim("ABC123GP", "VIN1", null));
+            assertEquals(PlateDirectory.Result.TAKEN, plates.claim("ABC123GP", "VIN2", null));
+            assertEquals(PlateDirectory.Result.CLAIMED, plates.claim("XYZ999GP", "VIN3", null));
+            assertTrue(plates.release("XYZ999GP", "VIN3"));
+            assertEquals(PlateDirectory.Result.CLAIMED, plates.claim("ABC123GP", "VIN2", "VIN1"));
+        }
+        try (PlateDirectory plates = new PlateDirectory(dataDir)) {
+            assertEquals(1, plates.size());
+            assertEquals("VIN2", plates.get("ABC123GP").vin);
+            assertNull(plates.get("XYZ999GP"));
+        }
+    }
+
+    @Test
+    void takeoverThatTriggersRewriteSurvivesRestart() throws IOException {
+        Path log = dataDir.resolve(PlateDirectory.LOG_FILE);
+        boolean rewritten = false;
+        String holder = "VIN0";
+        try (PlateDirectory plates = new PlateDirectory(dataDir)) {
+            plates.claim("ZZ11ZZGP", "KEEP", null);
+            plates.claim("AB12CDGP", holder, null);
+            // A takeover logs a record without adding a claim, so it is the
+            // one that crosses the rewrite threshold
+            for (int op = 1; !rewritten && op < 3 * PlateDirectory.COMPACT_SLACK; op++) {
+                long before = Files.size(log);
+                assertEquals(PlateDirectory.Result.CLAIMED, plates.claim("AB12CDGP", "VIN" + op, holder));
+                holder = "VIN" + op;
+                rewritten = Files.size(log) < before;
+            }
+        }
+        assertTrue(rewritten, "log was never rewritten");
+        try (PlateDirectory plates = new PlateDirectory(dataDir)) {
+            assertEquals(2, plates.size());
+            assertEquals("KEEP", plates.get("ZZ11ZZGP").vin);
+            assertEquals(holder, plates.get("AB12CDGP").vin);
+            assertEquals(PlateDirectory.Result.TAKEN, plates.claim("AB12CDGP", "OTHER", null));
+        }
+    }
+
+    @Test
+    void releaseThatTriggersRewriteSurvivesRestart() throws IOException {
+        Path log = dataDir.resolve(PlateDirectory.LOG_FILE);
+        boolean rewritten = false;
+        try (PlateDirectory plates = new PlateDirectory(dataDir)) {
+            plates.claim("ZZ11ZZGP", "KEEP", null);
+            for (int op = 0; !rewritten && op < 3 * PlateDirectory.COMPACT_SLACK; op++) {
+                plates.claim("AB12CDGP", "VIN" + op, null);
+                long before = Files.size(log);
+                assertTrue(plates.release("AB12CDGP", "VIN" + op));
+                rewritten = Files.size(log) < before;
+            }
+        }
+        assertTrue(rewritten, "log was never rewritten");
+        try (PlateDirectory plates = new PlateDirectory(dataDir)) {
+            assertEquals(1, plates.size());
+            assertNull(plates.get("AB12CDGP"));
+            assertEquals(PlateDirectory.Result.CLAIMED, plates.claim("AB12CDGP", "OTHER", null));
+        }
+    }
+}
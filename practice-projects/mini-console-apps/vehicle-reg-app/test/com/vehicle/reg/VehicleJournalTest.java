@@ -0,0 +1,150 @@
+package com.vehicle.reg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * -----------------------------------------------------------------------------
+ * VehicleJournalTest.java
+ *
+ * Journal and registry recovery: what was acknowledged before a close must
+ * come back on reopen, and a rejected write must not take later ones with it.
+ * -----------------------------------------------------------------------------
+ */
+class VehicleJournalTest {
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void batchWithOversizedFieldDoesNotLoseLaterAdds() throws IOException {
+        Car oversized = car("1HGCM82633A000001", "ABC001GP");
+        oversized.setMake("X".repeat(70_000));
+        try (VehicleJournal journal = new VehicleJournal(dataDir)) {
+            journal.replay(snapshot -> { }, car -> { }, vin -> { });
+            assertThrows(IllegalArgumentException.class,
+                    () -> journal.logBatch(List.of(car("1HGCM82633A000002", "ABC002GP"), oversized)));
+            journal.logAdd(car("1HGCM82633A000003", "ABC003GP"));
+            journal.logBatch(List.of(car("1HGCM82633A000004", "ABC004GP"), car("1HGCM82633A000005", "ABC005GP")));
+            journal.logAdd(car("1HGCM82633A000006", "ABC006GP"));
+        }
+
+        List<String> replayed = new ArrayList<>();
+        try (VehicleJournal journal = new VehicleJournal(dataDir)) {
+            journal.replay(snapshot -> { }, car -> replayed.add(car.getVin()), vin -> { });
+        }
+        assertEquals(List.of("1HGCM82633A000003", "1HGCM82633A000004", "1HGCM82633A000005",
+                "1HGCM82633A000006"), replayed);
+    }
+
+    @Test
+    void registryRejectsOversizedMakeAndKeepsLaterAddsAcrossReopen() throws IOException {
+        Car oversized = car("1HGCM82633A000001", "ABC001GP");
+        oversized.setModel("M".repeat(VehicleValidator.MAX_NAME_LENGTH + 1));
+
+        VehicleManager manager = new VehicleManager(dataDir);
+        BatchResult result = manager.registerBatch(
+                List.of(oversized, car("1HGCM82633A000002", "ABC002GP")), BatchResult.Mode.PER_ITEM);
+        assertEquals(BatchResult.Status.INVALID, result.getStatus(0));
+        assertEquals(BatchResult.Status.ADDED, result.getStatus(1));
+        assertThrows(IllegalArgumentException.class, () -> manager.addCar(oversized));
+        manager.addCar(car("1HGCM82633A000003", "ABC003GP"));
+        manager.close();
+
+        VehicleManager reopened = new VehicleManager(dataDir);
+        try {
+            assertEquals(2, reopened.size());
+            assertNotNull(reopened.findCar("1HGCM82633A000002"));
+            assertNotNull(reopened.findCar("1HGCM82633A000003"));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void concurrentWritesFlushedBeforeACrashAreRecovered(@TempDir Path crashed) throws Exception {
+        VehicleManager manager = new VehicleManager(dataDir);
+        try {
+            // Larger than the journal's group buffer, so it is written straight through
+            List<Car> batch = new ArrayList<>();
+            for (int n = 0; n < 30_000; n++) {
+                batch.add(car(vin(n), plate(n)));
+            }
+            assertEquals(30_000, manager.registerBatch(batch, BatchResult.Mode.ALL_OR_NOTHING).getAddedCount());
+
+            // Writers racing each other and the background flusher
+            Thread[] writers = new Thread[4];
+            for (int t = 0; t < writers.length; t++) {
+                int first = 30_000 + t * 3_000;
+                writers[t] = new Thread(() -> {
+                    for (int n = first; n < first + 3_000; n++) {
+                        manager.addCar(car(vin(n), plate(n)));
+                        if (n % 3 == 0) {
+                            manager.deleteCar(vin(n));
+                        }
+                    }
+                });
+                writers[t].start();
+            }
+            for (Thread writer : writers) {
+                writer.join();
+            }
+            manager.flush();
+
+            // Copy the files as they are now, without closing: a crash
+            try (Stream<Path> files = Files.list(dataDir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    if (!file.getFileName().toString().equals("vehicles.lock")) {
+                        Files.copy(file, crashed.resolve(file.getFileName()));
+                    }
+                }
+            }
+        } finally {
+            manager.close();
+        }
+
+        VehicleManager recovered = new VehicleManager(crashed);
+        try {
+            assertEquals(30_000 + 4 * 2_000, recovered.size());
+            assertNotNull(recovered.findCar(vin(29_999)));
+            assertNotNull(recovered.findCar(vin(41_999)));
+            assertNull(recovered.findCar(vin(30_000))); // deleted
+        } finally {
+            recovered.close();
+        }
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    static Car car(String vin, String plate) {
+        Car car = new Car();
+        car.setMake("Toyota");
+        car.setModel("Corolla");
+        car.setVin(vin);
+        car.setPlateNumber(plate);
+        car.setYear(2015);
+        car.setMileage(45000);
+        return car;
+    }
+
+    static String vin(int n) {
+        return String.format("1HGCM82633A%06d", n);
+    }
+
+    /** Old-format plate (three letters, three digits, GP) unique per n below 676,000. */
+    static String plate(int n) {
+        return "" + (char) ('A' + n / 1000 / 26 / 26) + (char) ('A' + n / 1000 / 26 % 26)
+                + (char) ('A' + n / 1000 % 26) + String.format("%03d", n % 1000) + "GP";
+    }
+}
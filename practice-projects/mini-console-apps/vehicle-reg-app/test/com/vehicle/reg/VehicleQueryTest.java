@@ -0,0 +1,94 @@
+package com.vehicle.reg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * -----------------------------------------------------------------------------
+ * VehicleQueryTest.java
+ *
+ * Iterating a query while deletes make the store renumber its slots.
+ * -----------------------------------------------------------------------------
+ */
+class VehicleQueryTest {
+
+    private static final int FLEET = 5_000;
+
+    @Test
+    void filteredIterationSurvivesCompaction() throws InterruptedException {
+        VehicleManager manager = fleet();
+        List<String> expected = vinsBuilt(manager, 2015);
+        Iterator<Car> cars = new VehicleQuery(manager).yearBetween(2015, 2015).iterator();
+        assertEquals(expected, readAcrossCompaction(manager, cars));
+    }
+
+    @Test
+    void unfilteredIterationSurvivesCompaction() throws InterruptedException {
+        VehicleManager manager = fleet();
+        List<String> expected = new ArrayList<>();
+        for (Car car : manager.getAllCars()) {
+            expected.add(car.getVin());
+        }
+        Iterator<Car> cars = new VehicleQuery(manager).iterator();
+        assertEquals(expected, readAcrossCompaction(manager, cars));
+    }
+
+    // ------------------ HELPER METHODS -------------------
+
+    /**
+     * Reads a few vehicles, deletes most of the fleet and waits for the
+     * background compaction, then reads the rest.
+     */
+    private static List<String> readAcrossCompaction(VehicleManager manager, Iterator<Car> cars)
+            throws InterruptedException {
+        List<String> seen = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            seen.add(cars.next().getVin());
+        }
+        int[] before = new int[1];
+        manager.readStore(store -> before[0] = store.compactions());
+        List<String> doomed = new ArrayList<>();
+        for (int n = 0; n < FLEET * 4 / 5; n++) {
+            doomed.add(VehicleJournalTest.vin(n));
+        }
+        manager.deleteAll(doomed);
+        int[] after = new int[1];
+        for (int wait = 0; wait < 500 && after[0] == before[0]; wait++) {
+            Thread.sleep(10);
+            manager.readStore(store -> after[0] = store.compactions());
+        }
+        assertTrue(after[0] > before[0], "store was not compacted");
+
+        while (cars.hasNext()) {
+            seen.add(cars.next().getVin());
+        }
+        return seen;
+    }
+
+    private static VehicleManager fleet() {
+        VehicleManager manager = new VehicleManager();
+        List<Car> cars = new ArrayList<>(FLEET);
+        for (int n = 0; n < FLEET; n++) {
+            Car car = VehicleJournalTest.car(VehicleJournalTest.vin(n), VehicleJournalTest.plate(n));
+            car.setYear(2010 + n % 10);
+            cars.add(car);
+        }
+        manager.registerBatch(cars, BatchResult.Mode.ALL_OR_NOTHING);
+        return manager;
+    }
+
+    private static List<String> vinsBuilt(VehicleManager manager, int year) {
+        List<String> vins = new ArrayList<>();
+        for (Car car : manager.getAllCars()) {
+            if (car.getYear() == year) {
+                vins.add(car.getVin());
+            }
+        }
+        return vins;
+    }
+}